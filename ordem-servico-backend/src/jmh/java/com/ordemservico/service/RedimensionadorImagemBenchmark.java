@@ -0,0 +1,95 @@
+package com.ordemservico.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedimensionadorImagem comparado ao Image.getScaledInstance(SCALE_SMOOTH)
+ * que ele substituiu, reduzindo originais de 2k, 8k e 20k de largura ao
+ * tamanho dos blocos do PDF.
+ *
+ * Os originais têm proporção 4:1 (estampas corridas) e tipo 3BYTE_BGR,
+ * o mesmo que o ImageIO produz ao decodificar um JPEG.
+ *
+ * Execução: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class RedimensionadorImagemBenchmark {
+
+    @Param({"2000", "8000", "20000"})
+    private int largura;
+
+    private final RedimensionadorImagem redimensionador = new RedimensionadorImagem();
+    private BufferedImage original;
+
+    @Setup(Level.Trial)
+    public void criarOriginal() {
+        int altura = largura / 4;
+        original = new BufferedImage(largura, altura, BufferedImage.TYPE_3BYTE_BGR);
+
+        Graphics2D g2d = original.createGraphics();
+        try {
+            g2d.setPaint(new GradientPaint(0, 0, new Color(230, 60, 40), largura, altura, new Color(30, 90, 200)));
+            g2d.fillRect(0, 0, largura, altura);
+            g2d.setColor(Color.WHITE);
+            for (int x = 0; x < largura; x += altura / 4) {
+                g2d.fillOval(x, altura / 3, altura / 8, altura / 3);
+            }
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void liberarOriginal() {
+        original = null;
+    }
+
+    @Benchmark
+    public BufferedImage redimensionador() {
+        return redimensionador.redimensionar(original, ImagemService.LARGURA_PDF, ImagemService.ALTURA_PDF);
+    }
+
+    /**
+     * Caminho anterior: getScaledInstance (AreaAveragingScaleFilter) desenhado
+     * em uma BufferedImage, o que força o redimensionamento preguiçoso.
+     */
+    @Benchmark
+    public BufferedImage getScaledInstance() {
+        Image reduzida = original.getScaledInstance(
+                ImagemService.LARGURA_PDF, ImagemService.ALTURA_PDF, Image.SCALE_SMOOTH);
+
+        BufferedImage destino = new BufferedImage(
+                ImagemService.LARGURA_PDF, ImagemService.ALTURA_PDF, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = destino.createGraphics();
+        try {
+            g2d.drawImage(reduzida, 0, 0, null);
+        } finally {
+            g2d.dispose();
+        }
+        return destino;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ordemservico.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache LRU em memória limitado pelo tamanho total (em bytes) das entradas.
+ * 
+ * Cada valor tem seu peso calculado por uma função informada na criação.
+ * Ao ultrapassar o orçamento, as entradas menos usadas recentemente são
+ * descartadas. Mantém contadores de acertos, falhas e descartes.
+ *
+ * @param <K> Tipo da chave
+ * @param <V> Tipo do valor
+ */
+public class CacheLimitadoPorBytes<K, V> {
+
+    private final long maxBytes;
+    private final ToLongFunction<V> pesador;
+    private final LinkedHashMap<K, V> entradas = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long bytesUsados;
+    private long acertos;
+    private long falhas;
+    private long descartes;
+
+    public CacheLimitadoPorBytes(long maxBytes, ToLongFunction<V> pesador) {
+        this.maxBytes = maxBytes;
+        this.pesador = pesador;
+    }
+
+    /**
+     * Busca um valor, atualizando a ordem de uso e os contadores.
+     * 
+     * @return Valor em cache ou null
+     */
+    public synchronized V get(K chave) {
+        V valor = entradas.get(chave);
+        if (valor != null) {
+            acertos++;
+        } else {
+            falhas++;
+        }
+        return valor;
+    }
+
+    /**
+     * Verifica se há valor para a chave, sem alterar a ordem de uso nem os contadores.
+     */
+    public synchronized boolean contem(K chave) {
+        return entradas.containsKey(chave);
+    }
+
+    /**
+     * Insere um valor. Valores maiores que o orçamento inteiro não são armazenados.
+     */
+    public synchronized void put(K chave, V valor) {
+        long peso = pesador.applyAsLong(valor);
+        if (peso > maxBytes) {
+            return;
+        }
+
+        V anterior = entradas.put(chave, valor);
+        if (anterior != null) {
+            bytesUsados -= pesador.applyAsLong(anterior);
+        }
+        bytesUsados += peso;
+
+        Iterator<Map.Entry<K, V>> it = entradas.entrySet().iterator();
+        while (bytesUsados > maxBytes && it.hasNext()) {
+            Map.Entry<K, V> maisAntiga = it.next();
+            bytesUsados -= pesador.applyAsLong(maisAntiga.getValue());
+            it.remove();
+            descartes++;
+        }
+    }
+
+    /**
+     * Remove uma entrada específica.
+     */
+    public synchronized void remover(K chave) {
+        V removido = entradas.remove(chave);
+        if (removido != null) {
+            bytesUsados -= pesador.applyAsLong(removido);
+        }
+    }
+
+    /**
+     * Remove todas as entradas cuja chave satisfaz o predicado.
+     */
+    public synchronized void removerSe(Predicate<K> condicao) {
+        Iterator<Map.Entry<K, V>> it = entradas.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, V> entrada = it.next();
+            if (condicao.test(entrada.getKey())) {
+                bytesUsados -= pesador.applyAsLong(entrada.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Retorna os contadores atuais do cache.
+     */
+    public synchronized Map<String, Object> estatisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entradas", entradas.size());
+        stats.put("bytesUsados", bytesUsados);
+        stats.put("bytesMaximo", maxBytes);
+        stats.put("acertos", acertos);
+        stats.put("falhas", falhas);
+        stats.put("descartes", descartes);
+        long total = acertos + falhas;
+        stats.put("taxaAcerto", total == 0 ? 0.0 : (double) acertos / total);
+        return stats;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ordemservico.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Orçamento em bytes para a camada em disco de um cache.
+ *
+ * A data de modificação de cada arquivo marca seu último uso (quem lê um
+ * arquivo do cache chama usado()). Quando o total gravado passa do máximo,
+ * o diretório é percorrido e os arquivos usados há mais tempo são removidos
+ * até sobrar no máximo 90% do orçamento.
+ *
+ * O total é uma estimativa mantida a cada gravação e recalculada a cada
+ * poda, de forma que remoções feitas por fora (invalidações) não exigem aviso.
+ */
+public class DiretorioLimitadoPorBytes {
+
+    private static final Logger log = LoggerFactory.getLogger(DiretorioLimitadoPorBytes.class);
+
+    private final Path diretorio;
+    private final long maxBytes;
+    private final AtomicLong bytesUsados = new AtomicLong();
+    private final AtomicLong descartes = new AtomicLong();
+
+    public DiretorioLimitadoPorBytes(Path diretorio, long maxBytes) {
+        this.diretorio = diretorio;
+        this.maxBytes = maxBytes;
+        podar();
+    }
+
+    /**
+     * Marca um arquivo como usado agora (LRU pela data de modificação).
+     */
+    public void usado(Path arquivo) {
+        try {
+            Files.setLastModifiedTime(arquivo, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Não foi possível atualizar o uso de {}", arquivo, e);
+        }
+    }
+
+    /**
+     * Contabiliza um arquivo gravado, podando o diretório se o orçamento for excedido.
+     */
+    public void gravado(long bytes) {
+        if (bytesUsados.addAndGet(bytes) > maxBytes) {
+            podar();
+        }
+    }
+
+    /**
+     * Recalcula o total em disco e remove os arquivos menos usados recentemente
+     * enquanto ele exceder 90% do orçamento.
+     */
+    public synchronized void podar() {
+        if (!Files.isDirectory(diretorio)) {
+            bytesUsados.set(0);
+            return;
+        }
+
+        List<Arquivo> arquivos = new ArrayList<>();
+        try (Stream<Path> caminhos = Files.walk(diretorio)) {
+            caminhos.forEach(caminho -> {
+                try {
+                    BasicFileAttributes atributos = Files.readAttributes(caminho, BasicFileAttributes.class);
+                    if (atributos.isRegularFile()) {
+                        arquivos.add(new Arquivo(caminho, atributos.size(), atributos.lastModifiedTime()));
+                    }
+                } catch (IOException e) {
+                    // Removido por outra thread durante a varredura
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Erro ao percorrer o cache em disco: {}", diretorio, e);
+            return;
+        }
+
+        long total = arquivos.stream().mapToLong(Arquivo::tamanho).sum();
+        if (total > maxBytes) {
+            long alvo = maxBytes / 10 * 9;
+            arquivos.sort(Comparator.comparing(Arquivo::usadoEm));
+            for (Arquivo arquivo : arquivos) {
+                if (total <= alvo) {
+                    break;
+                }
+                try {
+                    if (Files.deleteIfExists(arquivo.caminho())) {
+                        descartes.incrementAndGet();
+                    }
+                    total -= arquivo.tamanho();
+                } catch (IOException e) {
+                    log.warn("Erro ao remover arquivo do cache: {}", arquivo.caminho(), e);
+                }
+            }
+            log.debug("Cache em disco podado: {} ({} bytes)", diretorio, total);
+        }
+        bytesUsados.set(total);
+    }
+
+    /**
+     * Retorna a ocupação e os descartes da camada em disco.
+     */
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bytesDisco", bytesUsados.get());
+        stats.put("bytesDiscoMaximo", maxBytes);
+        stats.put("descartesDisco", descartes.get());
+        return stats;
+    }
+
+    private record Arquivo(Path caminho, long tamanho, FileTime usadoEm) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.ordemservico.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configuração dos pools de threads usados em processamento assíncrono
+ * e habilitação das tarefas agendadas (limpezas periódicas).
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Pool limitado para geração de derivadas de imagem após o upload.
+     * 
+     * Quando a fila enche, a tarefa é rejeitada em vez de bloquear o upload;
+     * as derivadas são então geradas sob demanda na primeira impressão.
+     */
+    @Bean(name = "derivadasExecutor")
+    public ThreadPoolTaskExecutor derivadasExecutor(
+            @Value("${app.imagem.derivadas.threads:2}") int threads,
+            @Value("${app.imagem.derivadas.fila:100}") int fila) {
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(fila);
+        executor.setThreadNamePrefix("derivadas-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool para a preparação das imagens do PDF (decodificação, crop e JPEG).
+     * 
+     * Com 0 threads, usa o número de processadores. A memória das
+     * decodificações continua limitada pelo OrcamentoDecodificacao.
+     * Quando a fila enche, a própria thread da requisição prepara a imagem.
+     */
+    @Bean(name = "pdfExecutor")
+    public ThreadPoolTaskExecutor pdfExecutor(
+            @Value("${app.pdf.preparacao.threads:0}") int threads,
+            @Value("${app.pdf.preparacao.fila:500}") int fila) {
+        
+        int tamanho = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(tamanho);
+        executor.setMaxPoolSize(tamanho);
+        executor.setQueueCapacity(fila);
+        executor.setThreadNamePrefix("pdf-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool dos jobs assíncronos de PDF, com fila por prioridade.
+     * 
+     * As tarefas enviadas devem ser Comparable; o limite de tamanho
+     * da fila é controlado pelo PdfJobService.
+     */
+    @Bean(name = "pdfJobsExecutor")
+    public ThreadPoolTaskExecutor pdfJobsExecutor(
+            @Value("${app.pdf.jobs.threads:2}") int threads) {
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor() {
+            @Override
+            protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+                return new PriorityBlockingQueue<>();
+            }
+        };
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("pdf-jobs-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool da impressão em lote: renderiza as próximas ordens do lote
+     * enquanto a atual é enviada.
+     * 
+     * Separado do pdfExecutor, que prepara as imagens de cada ordem:
+     * uma ordem aguardando suas imagens no mesmo pool poderia ocupar
+     * todas as threads.
+     */
+    @Bean(name = "pdfLoteExecutor")
+    public ThreadPoolTaskExecutor pdfLoteExecutor(
+            @Value("${app.pdf.lote.threads:2}") int threads) {
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("pdf-lote-");
+        executor.initialize();
+        return executor;
+    }
+}
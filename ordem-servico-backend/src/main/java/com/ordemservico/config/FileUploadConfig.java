@@ -1,12 +1,18 @@
 package com.ordemservico.config;
 
+import com.ordemservico.service.LayoutArmazenamento;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.PathResourceResolver;
 
 import jakarta.annotation.PostConstruct;
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Configuração para servir arquivos estáticos (imagens) e criar diretório de uploads.
@@ -17,6 +23,12 @@ public class FileUploadConfig implements WebMvcConfigurer {
     @Value("${app.upload.dir}")
     private String uploadDir;
 
+    private final LayoutArmazenamento layout;
+
+    public FileUploadConfig(LayoutArmazenamento layout) {
+        this.layout = layout;
+    }
+
     /**
      * Cria o diretório de uploads se não existir.
      */
@@ -33,10 +45,30 @@ public class FileUploadConfig implements WebMvcConfigurer {
 
     /**
      * Configura o handler para servir imagens estaticamente.
+     * 
+     * As URLs continuam planas (/uploads/<nome>, /uploads/miniaturas/<nome>.jpg);
+     * o resolver procura primeiro no layout distribuído e depois no antigo.
+     * A cadeia não usa cache de resolução, pois a migração move arquivos.
+     * 
+     * Os nomes identificam o conteúdo (hash ou UUID), então os navegadores
+     * podem manter os arquivos em cache indefinidamente.
      */
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadDir + "/");
+                .addResourceLocations("file:" + uploadDir + "/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .resourceChain(false)
+                .addResolver(new PathResourceResolver() {
+                    @Override
+                    protected Resource getResource(String resourcePath, Resource location) throws IOException {
+                        int barra = resourcePath.lastIndexOf('/');
+                        String diretorio = resourcePath.substring(0, barra + 1);
+                        String nome = resourcePath.substring(barra + 1);
+
+                        Resource distribuido = super.getResource(diretorio + layout.subcaminho(nome), location);
+                        return distribuido != null ? distribuido : super.getResource(resourcePath, location);
+                    }
+                });
     }
 }
@@ -1,17 +1,33 @@
 package com.ordemservico.controller;
 
+import com.ordemservico.domain.enums.StatusDerivada;
+import com.ordemservico.dto.ImagemMetadadosDTO;
+import com.ordemservico.service.CapacidadeExcedidaException;
+import com.ordemservico.service.DerivadaImagemService;
 import com.ordemservico.service.ImagemService;
+import com.ordemservico.service.MigracaoLayoutService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller REST para operações com imagens.
@@ -23,9 +39,14 @@ public class ImagemController {
     private static final Logger log = LoggerFactory.getLogger(ImagemController.class);
 
     private final ImagemService imagemService;
+    private final DerivadaImagemService derivadaService;
+    private final MigracaoLayoutService migracaoService;
 
-    public ImagemController(ImagemService imagemService) {
+    public ImagemController(ImagemService imagemService, DerivadaImagemService derivadaService,
+                            MigracaoLayoutService migracaoService) {
         this.imagemService = imagemService;
+        this.derivadaService = derivadaService;
+        this.migracaoService = migracaoService;
     }
 
     /**
@@ -44,6 +65,7 @@ public class ImagemController {
                     file.getSize() / 1024);
             
             String caminhoImagem = imagemService.uploadImagem(file);
+            derivadaService.agendar(caminhoImagem);
             
             Map<String, String> response = new HashMap<>();
             response.put("caminhoImagem", caminhoImagem);
@@ -62,34 +84,181 @@ public class ImagemController {
         }
     }
 
+    /**
+     * Endpoint para upload de imagem sem multipart.
+     * 
+     * O corpo da requisição é o próprio arquivo, gravado direto no destino
+     * final enquanto é recebido. Assinatura, hash e dimensões são verificados
+     * durante a transferência, e o upload falha logo nos primeiros bytes
+     * se o conteúdo não for uma imagem.
+     * 
+     * @param request Requisição com o arquivo no corpo
+     * @param nome Nome original do arquivo (opcional, apenas informativo)
+     * @return JSON com caminho, hash, formato e dimensões da imagem
+     */
+    @PostMapping(value = "/upload/stream", consumes = {
+            MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            MediaType.IMAGE_JPEG_VALUE,
+            MediaType.IMAGE_PNG_VALUE})
+    public ResponseEntity<?> uploadImagemStream(HttpServletRequest request,
+                                                @RequestParam(value = "nome", required = false) String nome) {
+        try {
+            log.info("Recebendo upload (stream) de imagem: {} ({}KB)", 
+                    nome, request.getContentLengthLong() / 1024);
+            
+            ImagemService.ArquivoArmazenado arquivo = imagemService.uploadImagem(
+                    request.getInputStream(), request.getContentLengthLong());
+            derivadaService.agendar(arquivo.caminhoImagem());
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("caminhoImagem", arquivo.caminhoImagem());
+            response.put("nomeOriginal", nome);
+            response.put("hash", arquivo.hash());
+            response.put("formato", arquivo.formato());
+            response.put("largura", arquivo.largura());
+            response.put("altura", arquivo.altura());
+            response.put("mensagem", "Upload realizado com sucesso");
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (IOException e) {
+            log.error("Erro no upload (stream) de imagem", e);
+            
+            Map<String, String> error = new HashMap<>();
+            error.put("erro", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
     /**
      * Endpoint para verificar se uma imagem existe.
      * 
+     * Quando existe, inclui os metadados indexados (dimensões, formato,
+     * tamanho e se os crops cortam a imagem), sem ler os pixels.
+     * 
      * @param filename Nome do arquivo
      * @return Status 200 se existe, 404 caso contrário
      */
     @GetMapping("/existe/{filename}")
     public ResponseEntity<?> verificarImagem(@PathVariable String filename) {
-        boolean existe = imagemService.imagemExiste(filename);
+        Optional<ImagemMetadadosDTO> metadados = imagemService.buscarMetadados(filename);
         
-        if (existe) {
-            return ResponseEntity.ok(Map.of("existe", true));
+        if (metadados.isPresent()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("existe", true);
+            response.put("metadados", metadados.get());
+            return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("existe", false, "mensagem", "Imagem não encontrada"));
         }
     }
 
+    /**
+     * Endpoint para exibir uma imagem, opcionalmente reduzida.
+     * 
+     * Como o nome do arquivo identifica o conteúdo, a resposta é cacheável
+     * para sempre (Cache-Control immutable), com ETag forte derivado do hash.
+     * Requisições condicionais (If-None-Match) recebem 304 sem tocar no disco,
+     * e requisições com Range recebem 206 com apenas o trecho pedido.
+     * 
+     * @param filename Nome do arquivo
+     * @param largura Largura desejada em pixels (opcional; arredondada para
+     *                uma das larguras disponíveis)
+     * @return Conteúdo da imagem
+     */
+    @GetMapping("/arquivo/{filename}")
+    public ResponseEntity<Resource> exibirImagem(@PathVariable String filename,
+                                                 @RequestParam(value = "w", required = false) Integer largura,
+                                                 WebRequest request) {
+        Optional<ImagemMetadadosDTO> metadados = imagemService.buscarMetadados(filename);
+        if (metadados.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        int larguraServida = imagemService.larguraExibicao(metadados.get(), largura);
+        String versao = metadados.get().getHash() != null ? metadados.get().getHash() : filename;
+        String etag = "\"" + versao + (larguraServida > 0 ? "-w" + larguraServida : "") + "\"";
+
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        try {
+            Path arquivo = imagemService.arquivoExibicao(filename, larguraServida);
+            if (!Files.isRegularFile(arquivo)) {
+                return ResponseEntity.notFound().build();
+            }
+
+            Resource recurso = new FileSystemResource(arquivo);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                    .contentType(MediaTypeFactory.getMediaType(recurso)
+                            .orElse(MediaType.APPLICATION_OCTET_STREAM))
+                    .body(recurso);
+        } catch (IOException e) {
+            log.error("Erro ao preparar imagem para exibição: {}", filename, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Endpoint com os metadados de uma imagem.
+     * 
+     * @param filename Nome do arquivo
+     * @return Dimensões, formato, tamanho, hash e se os crops cortam a imagem
+     */
+    @GetMapping("/{filename}/metadados")
+    public ResponseEntity<ImagemMetadadosDTO> buscarMetadados(@PathVariable String filename) {
+        return imagemService.buscarMetadados(filename)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Endpoint para buscar uma imagem já armazenada pelo hash do conteúdo.
+     * 
+     * Permite ao frontend pular o upload de arquivos que o servidor já possui.
+     * 
+     * @param hash SHA-256 do arquivo em hexadecimal
+     * @return Caminho da imagem, ou 404 se o conteúdo ainda não foi enviado
+     */
+    @GetMapping("/conteudo/{hash}")
+    public ResponseEntity<?> buscarPorHash(@PathVariable String hash) {
+        String caminhoImagem = imagemService.buscarPorHash(hash);
+        
+        if (caminhoImagem != null) {
+            return ResponseEntity.ok(Map.of("caminhoImagem", caminhoImagem));
+        } else {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("mensagem", "Conteúdo não encontrado"));
+        }
+    }
+
     /**
      * Endpoint para deletar uma imagem.
      * 
      * @param filename Nome do arquivo
-     * @return Status 204 se deletado com sucesso
+     * @return Status 204 se deletado com sucesso, 409 se ainda usada por alguma ordem
+     *         ou enviada recentemente (pode estar em uma ordem ainda não salva)
      */
     @DeleteMapping("/{filename}")
     public ResponseEntity<?> deletarImagem(@PathVariable String filename) {
+        long referencias = imagemService.contarReferencias(filename);
+        if (referencias > 0) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("erro", "Imagem em uso por " + referencias + " item(ns)"));
+        }
+        if (imagemService.emCarencia(filename)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("erro", "Imagem usada recentemente; será removida automaticamente se não for usada"));
+        }
+        
         try {
             imagemService.deletarImagem(filename);
+            derivadaService.esquecer(filename);
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             log.error("Erro ao deletar imagem: {}", filename, e);
@@ -97,4 +266,79 @@ public class ImagemController {
                     .body(Map.of("erro", "Erro ao deletar imagem"));
         }
     }
+
+    /**
+     * Endpoint com as estatísticas do cache de imagens processadas.
+     * 
+     * @return Acertos, falhas, descartes e ocupação do cache
+     */
+    @GetMapping("/cache/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticasCache() {
+        return ResponseEntity.ok(imagemService.estatisticasCache());
+    }
+
+    /**
+     * Endpoint para consultar as derivadas (versões para PDF e miniatura) de uma imagem.
+     * 
+     * @param filename Nome do arquivo
+     * @return Status da geração e caminho da miniatura quando pronta
+     */
+    @GetMapping("/{filename}/derivadas")
+    public ResponseEntity<Map<String, Object>> consultarDerivadas(@PathVariable String filename) {
+        StatusDerivada status = derivadaService.consultarStatus(filename);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", status);
+        if (status == StatusDerivada.PRONTA) {
+            response.put("miniatura", imagemService.caminhoRelativoMiniatura(filename));
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint com as métricas do controle de memória das decodificações.
+     * 
+     * @return Orçamento, uso, fila e tempos de espera
+     */
+    @GetMapping("/decodificacao/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticasDecodificacao() {
+        return ResponseEntity.ok(imagemService.estatisticasDecodificacao());
+    }
+
+    /**
+     * Inicia a migração dos uploads do diretório plano para subdiretórios.
+     * 
+     * Roda em segundo plano, em lotes; as imagens continuam acessíveis durante o processo.
+     * 
+     * @return 202 se iniciada, 409 se já houver uma migração em andamento
+     */
+    @PostMapping("/migracao-layout")
+    public ResponseEntity<Map<String, Object>> iniciarMigracaoLayout() {
+        if (!migracaoService.iniciar()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(migracaoService.consultar());
+        }
+        log.info("Migração de layout de uploads iniciada");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(migracaoService.consultar());
+    }
+
+    /**
+     * Consulta o andamento da migração de layout.
+     */
+    @GetMapping("/migracao-layout")
+    public ResponseEntity<Map<String, Object>> consultarMigracaoLayout() {
+        return ResponseEntity.ok(migracaoService.consultar());
+    }
+
+    /**
+     * Falta de memória para decodificar a imagem (ex.: ao gerar uma largura
+     * de exibição): 503 com Retry-After, para o cliente tentar de novo.
+     */
+    @ExceptionHandler(CapacidadeExcedidaException.class)
+    public ResponseEntity<Void> capacidadeExcedida(CapacidadeExcedidaException e) {
+        log.warn("Imagem adiada por falta de memória: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .build();
+    }
 }
@@ -1,18 +1,35 @@
 package com.ordemservico.controller;
 
+import com.ordemservico.domain.enums.FormatoLote;
+import com.ordemservico.domain.enums.PerfilRenderizacao;
+import com.ordemservico.dto.FiltroOrdensDTO;
+import com.ordemservico.dto.LotePdfDTO;
 import com.ordemservico.dto.OrdemServicoDTO;
+import com.ordemservico.dto.OrdemServicoResumoDTO;
+import com.ordemservico.dto.PaginaOrdensDTO;
+import com.ordemservico.service.CapacidadeExcedidaException;
+import com.ordemservico.service.NaoEncontradoException;
 import com.ordemservico.service.OrdemServicoService;
+import com.ordemservico.service.PdfCacheService;
+import com.ordemservico.service.PdfLoteService;
+import com.ordemservico.service.PdfPreviewService;
 import com.ordemservico.service.PdfService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller REST para operações com Ordem de Serviço.
@@ -25,10 +42,18 @@ public class OrdemServicoController {
 
     private final OrdemServicoService service;
     private final PdfService pdfService;
+    private final PdfCacheService pdfCache;
+    private final PdfLoteService pdfLote;
+    private final PdfPreviewService pdfPreview;
 
-    public OrdemServicoController(OrdemServicoService service, PdfService pdfService) {
+    public OrdemServicoController(OrdemServicoService service, PdfService pdfService,
+                                  PdfCacheService pdfCache, PdfLoteService pdfLote,
+                                  PdfPreviewService pdfPreview) {
         this.service = service;
         this.pdfService = pdfService;
+        this.pdfCache = pdfCache;
+        this.pdfLote = pdfLote;
+        this.pdfPreview = pdfPreview;
     }
 
     /**
@@ -44,15 +69,18 @@ public class OrdemServicoController {
     }
 
     /**
-     * Lista todas as ordens de serviço.
+     * Lista as ordens (mais recentes primeiro), paginadas por cursor e
+     * filtradas por cliente, período, tecido e papel. Retorna só os cabeçalhos.
      * 
-     * GET /api/ordens
+     * GET /api/ordens?cliente=&dataInicio=&dataFim=&tecido=&papel=&cursor=&tamanho=
      */
     @GetMapping
-    public ResponseEntity<List<OrdemServicoDTO>> listarTodas() {
-        log.info("GET /api/ordens - Listando todas as ordens");
-        List<OrdemServicoDTO> ordens = service.listarTodas();
-        return ResponseEntity.ok(ordens);
+    public ResponseEntity<PaginaOrdensDTO> listar(FiltroOrdensDTO filtro,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "20") int tamanho) {
+        log.info("GET /api/ordens - Listando ordens (tamanho: {}, cursor: {})", tamanho, cursor != null);
+        PaginaOrdensDTO pagina = service.listar(filtro, cursor, tamanho);
+        return ResponseEntity.ok(pagina);
     }
 
     /**
@@ -109,6 +137,21 @@ public class OrdemServicoController {
         }
     }
 
+    /**
+     * Resumo das ordens para listagens: cabeçalho, quantidade de itens e de
+     * páginas, sem carregar os itens. Opcionalmente filtrado por cliente.
+     * 
+     * GET /api/ordens/resumo?cliente=nome
+     */
+    @GetMapping("/resumo")
+    public ResponseEntity<List<OrdemServicoResumoDTO>> listarResumos(
+            @RequestParam(required = false) String cliente) {
+
+        log.info("GET /api/ordens/resumo?cliente={}", cliente);
+        List<OrdemServicoResumoDTO> resumos = service.listarResumos(cliente);
+        return ResponseEntity.ok(resumos);
+    }
+
     /**
      * Busca ordens por nome do cliente.
      * 
@@ -128,29 +171,45 @@ public class OrdemServicoController {
      * 
      * POST /api/ordens/{id}/pdf
      * 
-     * Retorna o PDF como byte array para download/preview no navegador.
+     * O PDF é enviado em streaming (chunked), página a página, enquanto é gerado.
+     * Ordens sem alteração desde a última geração são servidas do cache.
+     * O parâmetro perfil (RASCUNHO, PADRAO, IMPRESSAO) define a qualidade das imagens.
      */
     @PostMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> gerarPdf(@PathVariable Long id) {
-        log.info("POST /api/ordens/{}/pdf - Gerando PDF", id);
-        
-        try {
-            OrdemServicoDTO ordem = service.buscarPorId(id);
-            byte[] pdfBytes = pdfService.gerarPdf(ordem);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("inline", 
-                    "ordem_servico_" + id + ".pdf");
-            headers.setContentLength(pdfBytes.length);
-            
-            log.info("PDF gerado com sucesso: {} bytes", pdfBytes.length);
-            return ResponseEntity.ok().headers(headers).body(pdfBytes);
-            
-        } catch (Exception e) {
-            log.error("Erro ao gerar PDF da ordem: {}", id, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public ResponseEntity<StreamingResponseBody> gerarPdf(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "PADRAO") PerfilRenderizacao perfil) {
+        log.info("POST /api/ordens/{}/pdf - Gerando PDF ({})", id, perfil);
+        return responderPdfSalvo(id, perfil, null);
+    }
+
+    /**
+     * Obtém o PDF de uma ordem de serviço, com suporte a requisição condicional.
+     * 
+     * GET /api/ordens/{id}/pdf
+     * 
+     * O ETag identifica a versão da ordem: com If-None-Match igual, responde
+     * 304 sem gerar nem enviar o PDF.
+     */
+    @GetMapping("/{id}/pdf")
+    public ResponseEntity<StreamingResponseBody> obterPdf(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "PADRAO") PerfilRenderizacao perfil,
+            WebRequest request) {
+        log.info("GET /api/ordens/{}/pdf - Obtendo PDF ({})", id, perfil);
+        return responderPdfSalvo(id, perfil, request);
+    }
+
+    /**
+     * Endpoint com as estatísticas do cache de PDFs.
+     * 
+     * GET /api/ordens/pdf/cache/estatisticas
+     */
+    @GetMapping("/pdf/cache/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticasCachePdf() {
+        Map<String, Object> response = new LinkedHashMap<>(pdfCache.estatisticas());
+        response.put("paginas", pdfService.estatisticasPaginas());
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -161,22 +220,208 @@ public class OrdemServicoController {
      * Útil para preview antes de salvar a ordem.
      */
     @PostMapping("/pdf/preview")
-    public ResponseEntity<byte[]> gerarPdfPreview(@Valid @RequestBody OrdemServicoDTO dto) {
-        log.info("POST /api/ordens/pdf/preview - Gerando preview de PDF");
-        
+    public ResponseEntity<StreamingResponseBody> gerarPdfPreview(
+            @Valid @RequestBody OrdemServicoDTO dto,
+            @RequestParam(defaultValue = "PADRAO") PerfilRenderizacao perfil) {
+        log.info("POST /api/ordens/pdf/preview - Gerando preview de PDF ({})", perfil);
+        return responderPdf(dto, perfil, "preview_ordem_servico.pdf");
+    }
+
+    /**
+     * Preview de uma página (numeroPagina) como PNG, sem salvar a ordem.
+     * 
+     * POST /api/ordens/pdf/preview/paginas/{n}
+     * 
+     * Renderiza somente a página pedida, em baixa resolução, para o editor
+     * atualizar o preview enquanto o operador digita.
+     */
+    @PostMapping("/pdf/preview/paginas/{n}")
+    public ResponseEntity<byte[]> gerarPreviewPagina(
+            @PathVariable int n,
+            @Valid @RequestBody OrdemServicoDTO dto,
+            @RequestParam(defaultValue = "RASCUNHO") PerfilRenderizacao perfil) {
         try {
-            byte[] pdfBytes = pdfService.gerarPdf(dto);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("inline", "preview_ordem_servico.pdf");
-            headers.setContentLength(pdfBytes.length);
-            
-            return ResponseEntity.ok().headers(headers).body(pdfBytes);
-            
+            return responderPng(pdfPreview.gerarPng(dto, n, perfil));
+        } catch (NaoEncontradoException e) {
+            log.warn("Página não encontrada no preview: {}", n);
+            return ResponseEntity.notFound().build();
+        } catch (CapacidadeExcedidaException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Erro ao gerar preview de PDF", e);
+            log.error("Erro ao gerar preview da página {}", n, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Preview de uma página (numeroPagina) de uma ordem salva, como PNG.
+     * 
+     * GET /api/ordens/{id}/pdf/preview/paginas/{n}
+     */
+    @GetMapping("/{id}/pdf/preview/paginas/{n}")
+    public ResponseEntity<byte[]> obterPreviewPagina(
+            @PathVariable Long id,
+            @PathVariable int n,
+            @RequestParam(defaultValue = "RASCUNHO") PerfilRenderizacao perfil) {
+        try {
+            OrdemServicoDTO ordem = service.buscarCabecalho(id);
+            return responderPng(pdfPreview.gerarPngSalva(ordem, n, perfil));
+        } catch (NaoEncontradoException e) {
+            log.warn("Ordem ou página não encontrada: {} / {}", id, n);
+            return ResponseEntity.notFound().build();
+        } catch (CapacidadeExcedidaException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Erro ao gerar preview da página {} da ordem {}", n, id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Imprime várias ordens de uma vez: um PDF único ou um ZIP com um PDF por ordem.
+     * 
+     * POST /api/ordens/pdf/lote
+     * 
+     * Aceita uma lista de ids (na sequência de impressão) ou um período
+     * (dataInicio/dataFim). O resultado é enviado à medida que cada ordem
+     * fica pronta. Lote vazio ou acima de app.pdf.lote.ordens-max responde 400.
+     */
+    @PostMapping("/pdf/lote")
+    public ResponseEntity<StreamingResponseBody> gerarPdfLote(@Valid @RequestBody LotePdfDTO lote) {
+        List<Long> ids = pdfLote.resolverIds(lote);
+        log.info("POST /api/ordens/pdf/lote - Gerando lote de {} ordens ({}, {})",
+                ids.size(), lote.getFormato(), lote.getPerfil());
+        
+        HttpHeaders headers = new HttpHeaders();
+        if (lote.getFormato() == FormatoLote.ZIP) {
+            headers.setContentType(MediaType.parseMediaType("application/zip"));
+            headers.setContentDispositionFormData("attachment", "ordens_servico.zip");
+        } else {
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentDispositionFormData("inline", "ordens_servico.pdf");
+        }
+        
+        StreamingResponseBody corpo = saida -> {
+            try {
+                pdfLote.escrever(ids, lote.getFormato(), lote.getPerfil(), saida);
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Erro ao gerar lote de PDFs", e);
+            }
+        };
+        
+        return ResponseEntity.ok().headers(headers).body(corpo);
+    }
+
+    /**
+     * Responde com o PDF de uma ordem salva, passando pelo cache de PDFs.
+     * 
+     * O ETag só acompanha PDFs vindos do cache, que estão sempre completos.
+     * Um PDF renderizado agora pode sair degradado (imagem não disponível) ou
+     * misturar duas versões da ordem, então segue sem ETag e com no-store.
+     * 
+     * @param request Requisição, para tratar If-None-Match (null para ignorar)
+     */
+    private ResponseEntity<StreamingResponseBody> responderPdfSalvo(Long id, PerfilRenderizacao perfil,
+                                                                   WebRequest request) {
+        OrdemServicoDTO ordem;
+        try {
+            ordem = service.buscarCabecalho(id);
+        } catch (RuntimeException e) {
+            log.error("Ordem não encontrada: {}", id);
+            return ResponseEntity.notFound().build();
+        }
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("inline", "ordem_servico_" + id + ".pdf");
+        
+        byte[] emCache = pdfCache.buscar(ordem, perfil);
+        if (emCache != null) {
+            String etag = pdfCache.etag(ordem, perfil);
+            if (request != null && request.checkNotModified(etag)) {
+                return null;
+            }
+            headers.setCacheControl(CacheControl.noCache());
+            if (request == null) {
+                // Em requisições condicionais o ETag já foi definido por checkNotModified
+                headers.setETag(etag);
+            }
+            StreamingResponseBody corpo = saida -> saida.write(emCache);
+            return ResponseEntity.ok().headers(headers).body(corpo);
+        }
+        
+        headers.setCacheControl(CacheControl.noStore());
+        StreamingResponseBody corpo = saida -> {
+            try {
+                pdfCache.renderizar(ordem, perfil, saida, paginas -> { });
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Erro ao gerar PDF", e);
+            }
+        };
+        
+        return ResponseEntity.ok().headers(headers).body(corpo);
+    }
+
+    /**
+     * Requisição inválida (lote sem ordens ou acima do limite, cursor de listagem inválido).
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> requisicaoInvalida(IllegalArgumentException e) {
+        log.warn("Requisição inválida: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+    }
+
+    /**
+     * Falta de memória para decodificar imagens antes do início do envio do PDF.
+     */
+    @ExceptionHandler(CapacidadeExcedidaException.class)
+    public ResponseEntity<Void> capacidadeExcedida(CapacidadeExcedidaException e) {
+        log.warn("PDF adiado por falta de memória: {}", e.getMessage());
+        return servidorOcupado();
+    }
+
+    /**
+     * Resposta com o PDF gerado diretamente no corpo, sem montar o arquivo em memória.
+     * 
+     * Erros antes do primeiro envio viram 503 (CapacidadeExcedidaException) ou 500;
+     * depois disso a conexão é interrompida e o cliente recebe um PDF incompleto.
+     */
+    private ResponseEntity<StreamingResponseBody> responderPdf(OrdemServicoDTO ordem, PerfilRenderizacao perfil,
+                                                               String nomeArquivo) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("inline", nomeArquivo);
+        
+        StreamingResponseBody corpo = saida -> {
+            try {
+                pdfService.gerarPdf(ordem, perfil, saida);
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Erro ao gerar PDF", e);
+            }
+        };
+        
+        return ResponseEntity.ok().headers(headers).body(corpo);
+    }
+
+    private ResponseEntity<byte[]> responderPng(byte[] png) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .cacheControl(CacheControl.noCache())
+                .body(png);
+    }
+
+    /**
+     * Resposta 503 com Retry-After para sobrecarga temporária de imagens.
+     */
+    private <T> ResponseEntity<T> servidorOcupado() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .build();
+    }
 }
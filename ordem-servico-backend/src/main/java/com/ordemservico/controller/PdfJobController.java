@@ -0,0 +1,123 @@
+package com.ordemservico.controller;
+
+import com.ordemservico.domain.enums.PerfilRenderizacao;
+import com.ordemservico.domain.enums.PrioridadeJobPdf;
+import com.ordemservico.dto.OrdemServicoDTO;
+import com.ordemservico.service.CapacidadeExcedidaException;
+import com.ordemservico.service.OrdemServicoService;
+import com.ordemservico.service.PdfJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Controller REST para geração assíncrona de PDF (fila de jobs).
+ */
+@RestController
+@RequestMapping("/api/ordens")
+public class PdfJobController {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfJobController.class);
+
+    private final PdfJobService jobService;
+    private final OrdemServicoService ordemService;
+
+    public PdfJobController(PdfJobService jobService, OrdemServicoService ordemService) {
+        this.jobService = jobService;
+        this.ordemService = ordemService;
+    }
+
+    /**
+     * Enfileira a geração do PDF de uma ordem.
+     * 
+     * POST /api/ordens/{id}/pdf/jobs?prioridade=REIMPRESSAO&perfil=IMPRESSAO
+     * 
+     * @return 202 com o id do job, 404 se a ordem não existir, 503 se a fila estiver cheia
+     */
+    @PostMapping("/{id}/pdf/jobs")
+    public ResponseEntity<?> enfileirar(@PathVariable Long id,
+                                        @RequestParam(defaultValue = "REIMPRESSAO") PrioridadeJobPdf prioridade,
+                                        @RequestParam(defaultValue = "PADRAO") PerfilRenderizacao perfil) {
+        log.info("POST /api/ordens/{}/pdf/jobs - Enfileirando PDF ({}, {})", id, prioridade, perfil);
+        
+        OrdemServicoDTO ordem;
+        try {
+            ordem = ordemService.buscarCabecalho(id);
+        } catch (RuntimeException e) {
+            log.error("Ordem não encontrada: {}", id);
+            return ResponseEntity.notFound().build();
+        }
+        
+        try {
+            String jobId = jobService.enfileirar(ordem, prioridade, perfil);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/api/ordens/pdf/jobs/" + jobId)
+                    .body(jobService.consultar(jobId));
+        } catch (CapacidadeExcedidaException e) {
+            log.warn("Job de PDF recusado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * Consulta a situação e o andamento (páginas concluídas) de um job.
+     * 
+     * GET /api/ordens/pdf/jobs/{jobId}
+     */
+    @GetMapping("/pdf/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> consultar(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(jobService.consultar(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Baixa o PDF de um job concluído.
+     * 
+     * GET /api/ordens/pdf/jobs/{jobId}/arquivo
+     * 
+     * @return PDF, 409 se o job ainda não terminou (ou falhou), 404 se não existir ou expirou
+     */
+    @GetMapping("/pdf/jobs/{jobId}/arquivo")
+    public ResponseEntity<?> baixar(@PathVariable String jobId) {
+        try {
+            Path arquivo = jobService.arquivo(jobId);
+            if (arquivo == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(jobService.consultar(jobId));
+            }
+            
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentDispositionFormData("inline",
+                    "ordem_servico_" + jobService.ordemId(jobId) + ".pdf");
+            
+            Resource pdf = new FileSystemResource(arquivo);
+            return ResponseEntity.ok().headers(headers).body(pdf);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Métricas da fila: tamanho, concorrência, tempos de espera e de renderização.
+     * 
+     * GET /api/ordens/pdf/jobs/estatisticas
+     */
+    @GetMapping("/pdf/jobs/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticas() {
+        return ResponseEntity.ok(jobService.estatisticas());
+    }
+}
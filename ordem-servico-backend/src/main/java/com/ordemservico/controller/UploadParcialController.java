@@ -0,0 +1,152 @@
+package com.ordemservico.controller;
+
+import com.ordemservico.dto.InicioUploadDTO;
+import com.ordemservico.service.CapacidadeExcedidaException;
+import com.ordemservico.service.DerivadaImagemService;
+import com.ordemservico.service.ImagemService;
+import com.ordemservico.service.UploadNaoEncontradoException;
+import com.ordemservico.service.UploadParcialService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controller REST para upload em partes (retomável) de imagens grandes.
+ */
+@RestController
+@RequestMapping("/api/imagens/uploads")
+public class UploadParcialController {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadParcialController.class);
+
+    private final UploadParcialService uploadParcialService;
+    private final DerivadaImagemService derivadaService;
+
+    public UploadParcialController(UploadParcialService uploadParcialService,
+                                   DerivadaImagemService derivadaService) {
+        this.uploadParcialService = uploadParcialService;
+        this.derivadaService = derivadaService;
+    }
+
+    /**
+     * Inicia um upload em partes.
+     * 
+     * POST /api/imagens/uploads
+     */
+    @PostMapping
+    public ResponseEntity<?> iniciar(@Valid @RequestBody InicioUploadDTO dto) {
+        try {
+            String uploadId = uploadParcialService.iniciar(dto.getNome(), dto.getTamanho());
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("uploadId", uploadId));
+        } catch (IOException e) {
+            log.error("Erro ao iniciar upload em partes", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * Envia uma parte do arquivo a partir do offset informado.
+     * 
+     * PUT /api/imagens/uploads/{uploadId}?offset=0
+     */
+    @PutMapping(value = "/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> enviarParte(@PathVariable String uploadId,
+                                         @RequestParam long offset,
+                                         HttpServletRequest request) {
+        try {
+            long recebidos = uploadParcialService.gravarParte(
+                    uploadId, offset, request.getInputStream(), request.getContentLengthLong());
+            return ResponseEntity.ok(Map.of("recebidos", recebidos));
+        } catch (IOException e) {
+            log.error("Erro ao gravar parte do upload: {} (offset {})", uploadId, offset, e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("erro", e.getMessage()));
+        } catch (UploadNaoEncontradoException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Consulta o andamento de um upload (para retomar após queda de conexão).
+     * 
+     * GET /api/imagens/uploads/{uploadId}
+     */
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> consultar(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(uploadParcialService.consultar(uploadId));
+        } catch (UploadNaoEncontradoException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Conclui o upload: monta o arquivo e aplica a validação normal de imagens.
+     * 
+     * POST /api/imagens/uploads/{uploadId}/concluir
+     */
+    @PostMapping("/{uploadId}/concluir")
+    public ResponseEntity<?> concluir(@PathVariable String uploadId,
+                                      @RequestParam(value = "nome", required = false) String nome) {
+        try {
+            ImagemService.ArquivoArmazenado arquivo = uploadParcialService.concluir(uploadId);
+            derivadaService.agendar(arquivo.caminhoImagem());
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("caminhoImagem", arquivo.caminhoImagem());
+            response.put("nomeOriginal", nome);
+            response.put("hash", arquivo.hash());
+            response.put("formato", arquivo.formato());
+            response.put("largura", arquivo.largura());
+            response.put("altura", arquivo.altura());
+            response.put("mensagem", "Upload realizado com sucesso");
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (IOException e) {
+            log.error("Erro ao concluir upload em partes: {}", uploadId, e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("erro", e.getMessage()));
+        } catch (UploadNaoEncontradoException e) {
+            return ResponseEntity.notFound().build();
+        } catch (RuntimeException e) {
+            log.error("Erro inesperado ao concluir upload em partes: {}", uploadId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("erro", "Erro ao concluir upload"));
+        }
+    }
+
+    /**
+     * Cancela um upload em partes.
+     * 
+     * DELETE /api/imagens/uploads/{uploadId}
+     */
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> cancelar(@PathVariable String uploadId) {
+        try {
+            uploadParcialService.cancelar(uploadId);
+            return ResponseEntity.noContent().build();
+        } catch (UploadNaoEncontradoException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Limite de uploads em partes abertos atingido: 503 com Retry-After.
+     */
+    @ExceptionHandler(CapacidadeExcedidaException.class)
+    public ResponseEntity<Map<String, String>> capacidadeExcedida(CapacidadeExcedidaException e) {
+        log.warn("Upload em partes recusado: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(Map.of("erro", e.getMessage()));
+    }
+}
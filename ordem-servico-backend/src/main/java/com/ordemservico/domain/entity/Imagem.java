@@ -0,0 +1,170 @@
+package com.ordemservico.domain.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidade com os metadados de uma imagem armazenada.
+ * 
+ * Gravada no upload, permite responder perguntas como "a imagem será
+ * cortada?" ou "quais as dimensões?" sem ler os pixels do arquivo.
+ */
+@Entity
+@Table(name = "imagem")
+public class Imagem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Nome do arquivo no servidor (mesmo valor de ItemOrdem.caminhoImagem).
+     */
+    @Column(nullable = false, unique = true, length = 500)
+    private String nome;
+
+    @Column(nullable = false)
+    private Integer largura;
+
+    @Column(nullable = false)
+    private Integer altura;
+
+    /**
+     * Formato detectado pelo conteúdo (jpg ou png).
+     */
+    @Column(length = 10)
+    private String formato;
+
+    @Column(nullable = false)
+    private Long tamanhoBytes;
+
+    /**
+     * SHA-256 do conteúdo em hexadecimal.
+     * Pode ser nulo para imagens anteriores ao armazenamento por conteúdo.
+     */
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private LocalDateTime criadoEm;
+
+    /**
+     * Último upload ou consulta por hash deste conteúdo.
+     * Uma imagem sem itens que a referenciem só é removida depois de um
+     * período sem uso: pode estar em uma ordem ainda não salva.
+     */
+    private LocalDateTime usadoEm;
+
+    // === Construtores ===
+
+    public Imagem() {
+    }
+
+    public Imagem(String nome, Integer largura, Integer altura, String formato,
+                  Long tamanhoBytes, String hash) {
+        this.nome = nome;
+        this.largura = largura;
+        this.altura = altura;
+        this.formato = formato;
+        this.tamanhoBytes = tamanhoBytes;
+        this.hash = hash;
+    }
+
+    // === Getters e Setters ===
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public Integer getLargura() {
+        return largura;
+    }
+
+    public void setLargura(Integer largura) {
+        this.largura = largura;
+    }
+
+    public Integer getAltura() {
+        return altura;
+    }
+
+    public void setAltura(Integer altura) {
+        this.altura = altura;
+    }
+
+    public String getFormato() {
+        return formato;
+    }
+
+    public void setFormato(String formato) {
+        this.formato = formato;
+    }
+
+    public Long getTamanhoBytes() {
+        return tamanhoBytes;
+    }
+
+    public void setTamanhoBytes(Long tamanhoBytes) {
+        this.tamanhoBytes = tamanhoBytes;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+
+    public void setCriadoEm(LocalDateTime criadoEm) {
+        this.criadoEm = criadoEm;
+    }
+
+    public LocalDateTime getUsadoEm() {
+        return usadoEm;
+    }
+
+    public void setUsadoEm(LocalDateTime usadoEm) {
+        this.usadoEm = usadoEm;
+    }
+
+    @PrePersist
+    private void definirDataCriacao() {
+        if (criadoEm == null) {
+            criadoEm = LocalDateTime.now();
+        }
+        if (usadoEm == null) {
+            usadoEm = criadoEm;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Imagem)) return false;
+        Imagem that = (Imagem) o;
+        return id != null && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -3,9 +3,11 @@ package com.ordemservico.domain.entity;
 import jakarta.persistence.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Entidade que representa uma Ordem de Serviço de impressão têxtil.
@@ -14,7 +16,10 @@ import java.util.List;
  * Contém informações de cabeçalho e lista de itens (imagens).
  */
 @Entity
-@Table(name = "ordem_servico")
+@Table(name = "ordem_servico", indexes = {
+    // Listagem por cursor: ordenação e busca do ponto de continuação pelo mesmo índice
+    @Index(name = "idx_ordem_servico_data_hora_id", columnList = "data, hora, id")
+})
 public class OrdemServico {
 
     @Id
@@ -72,6 +77,29 @@ public class OrdemServico {
     @Column(nullable = false)
     private Boolean calandra = false;
 
+    // === Controle de Versão ===
+
+    /**
+     * Identificador aleatório (UUID) definido na criação e nunca alterado
+     * (ordens anteriores a ele recebem um na próxima alteração).
+     * Junto com a versão, identifica o PDF em cache: ids e versões se repetem
+     * quando o banco é recriado (H2 em memória) ou restaurado, este não.
+     */
+    @Column(length = 36)
+    private String identificador;
+
+    /**
+     * Versão da ordem, incrementada a cada alteração.
+     * Identifica o PDF renderizado em cache (e seu ETag).
+     */
+    @Version
+    private Long versao;
+
+    /**
+     * Data/hora da última alteração.
+     */
+    private LocalDateTime atualizadoEm;
+
     // === Relacionamento com Itens ===
     
     /**
@@ -209,6 +237,30 @@ public class OrdemServico {
         this.calandra = calandra;
     }
 
+    public String getIdentificador() {
+        return identificador;
+    }
+
+    public void setIdentificador(String identificador) {
+        this.identificador = identificador;
+    }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    public LocalDateTime getAtualizadoEm() {
+        return atualizadoEm;
+    }
+
+    public void setAtualizadoEm(LocalDateTime atualizadoEm) {
+        this.atualizadoEm = atualizadoEm;
+    }
+
     public List<ItemOrdem> getItens() {
         return itens;
     }
@@ -258,5 +310,11 @@ public class OrdemServico {
     @PreUpdate
     private void validarAntesDeSalvar() {
         validarCheckboxes();
+        if (identificador == null) {
+            identificador = UUID.randomUUID().toString();
+        }
+        if (atualizadoEm == null) {
+            atualizadoEm = LocalDateTime.now();
+        }
     }
 }
@@ -0,0 +1,17 @@
+package com.ordemservico.domain.enums;
+
+/**
+ * Formato de saída da impressão em lote.
+ */
+public enum FormatoLote {
+
+    /**
+     * Um único PDF com todas as ordens, em sequência.
+     */
+    PDF,
+
+    /**
+     * Um arquivo ZIP com um PDF por ordem.
+     */
+    ZIP
+}
@@ -0,0 +1,26 @@
+package com.ordemservico.domain.enums;
+
+/**
+ * Perfil de qualidade na geração do PDF.
+ * 
+ * Define a resolução e a qualidade JPEG das imagens embutidas
+ * (configuradas em app.pdf.perfis). Cada perfil tem suas próprias
+ * entradas nos caches de imagens, páginas e PDFs.
+ */
+public enum PerfilRenderizacao {
+
+    /**
+     * Conferência rápida na tela: baixa resolução e compressão agressiva.
+     */
+    RASCUNHO,
+
+    /**
+     * Padrão da aplicação (app.pdf.dpi e app.pdf.jpeg-qualidade).
+     */
+    PADRAO,
+
+    /**
+     * Impressão final (RIP): alta resolução e qualidade máxima.
+     */
+    IMPRESSAO
+}
@@ -0,0 +1,20 @@
+package com.ordemservico.domain.enums;
+
+/**
+ * Prioridade de um job de PDF na fila.
+ * 
+ * A ordem de declaração define a prioridade: jobs de REIMPRESSAO
+ * (operador aguardando no balcão) passam à frente dos de LOTE.
+ */
+public enum PrioridadeJobPdf {
+
+    /**
+     * Reimpressão solicitada por um operador.
+     */
+    REIMPRESSAO,
+
+    /**
+     * Impressão em lote (ex.: todas as ordens do dia).
+     */
+    LOTE
+}
@@ -0,0 +1,37 @@
+package com.ordemservico.domain.enums;
+
+/**
+ * Situação da geração das derivadas de uma imagem (versões para PDF e miniatura).
+ */
+public enum StatusDerivada {
+
+    /**
+     * Aguardando na fila de processamento.
+     */
+    PENDENTE,
+
+    /**
+     * Em processamento.
+     */
+    PROCESSANDO,
+
+    /**
+     * Todas as derivadas estão prontas.
+     */
+    PRONTA,
+
+    /**
+     * Falha ao gerar as derivadas (serão geradas sob demanda).
+     */
+    ERRO,
+
+    /**
+     * Fila cheia - não agendada (serão geradas sob demanda).
+     */
+    DESCARTADA,
+
+    /**
+     * Nenhuma informação sobre a imagem.
+     */
+    DESCONHECIDA
+}
@@ -0,0 +1,27 @@
+package com.ordemservico.domain.enums;
+
+/**
+ * Situação de um job assíncrono de geração de PDF.
+ */
+public enum StatusJobPdf {
+
+    /**
+     * Aguardando na fila.
+     */
+    NA_FILA,
+
+    /**
+     * Em renderização.
+     */
+    PROCESSANDO,
+
+    /**
+     * PDF pronto para download.
+     */
+    CONCLUIDO,
+
+    /**
+     * Falha na geração.
+     */
+    ERRO
+}
@@ -0,0 +1,87 @@
+package com.ordemservico.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros combináveis da listagem de ordens (parâmetros de consulta).
+ * 
+ * Campos nulos ou vazios não filtram.
+ */
+public class FiltroOrdensDTO {
+
+    /**
+     * Parte do nome do cliente (sem distinção de maiúsculas).
+     */
+    private String cliente;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dataInicio;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dataFim;
+
+    /**
+     * Parte do tecido (sem distinção de maiúsculas).
+     */
+    private String tecido;
+
+    /**
+     * Parte do papel (sem distinção de maiúsculas).
+     */
+    private String papel;
+
+    // Construtores
+    public FiltroOrdensDTO() {
+    }
+
+    public FiltroOrdensDTO(String cliente, LocalDate dataInicio, LocalDate dataFim, String tecido, String papel) {
+        this.cliente = cliente;
+        this.dataInicio = dataInicio;
+        this.dataFim = dataFim;
+        this.tecido = tecido;
+        this.papel = papel;
+    }
+
+    // Getters e Setters
+    public String getCliente() {
+        return cliente;
+    }
+
+    public void setCliente(String cliente) {
+        this.cliente = cliente;
+    }
+
+    public LocalDate getDataInicio() {
+        return dataInicio;
+    }
+
+    public void setDataInicio(LocalDate dataInicio) {
+        this.dataInicio = dataInicio;
+    }
+
+    public LocalDate getDataFim() {
+        return dataFim;
+    }
+
+    public void setDataFim(LocalDate dataFim) {
+        this.dataFim = dataFim;
+    }
+
+    public String getTecido() {
+        return tecido;
+    }
+
+    public void setTecido(String tecido) {
+        this.tecido = tecido;
+    }
+
+    public String getPapel() {
+        return papel;
+    }
+
+    public void setPapel(String papel) {
+        this.papel = papel;
+    }
+}
@@ -0,0 +1,106 @@
+package com.ordemservico.dto;
+
+import com.ordemservico.domain.enums.TipoCrop;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO com os metadados de uma imagem (sem os pixels).
+ */
+public class ImagemMetadadosDTO {
+
+    private String nome;
+    private Integer largura;
+    private Integer altura;
+    private String formato;
+    private Long tamanhoBytes;
+    private String hash;
+    private LocalDateTime criadoEm;
+
+    // Construtores
+    public ImagemMetadadosDTO() {
+    }
+
+    public ImagemMetadadosDTO(String nome, Integer largura, Integer altura, String formato,
+                              Long tamanhoBytes, String hash, LocalDateTime criadoEm) {
+        this.nome = nome;
+        this.largura = largura;
+        this.altura = altura;
+        this.formato = formato;
+        this.tamanhoBytes = tamanhoBytes;
+        this.hash = hash;
+        this.criadoEm = criadoEm;
+    }
+
+    // Getters e Setters
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public Integer getLargura() {
+        return largura;
+    }
+
+    public void setLargura(Integer largura) {
+        this.largura = largura;
+    }
+
+    public Integer getAltura() {
+        return altura;
+    }
+
+    public void setAltura(Integer altura) {
+        this.altura = altura;
+    }
+
+    public String getFormato() {
+        return formato;
+    }
+
+    public void setFormato(String formato) {
+        this.formato = formato;
+    }
+
+    public Long getTamanhoBytes() {
+        return tamanhoBytes;
+    }
+
+    public void setTamanhoBytes(Long tamanhoBytes) {
+        this.tamanhoBytes = tamanhoBytes;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+
+    public void setCriadoEm(LocalDateTime criadoEm) {
+        this.criadoEm = criadoEm;
+    }
+
+    /**
+     * Indica se os crops ESQUERDA/DIREITA cortam a imagem (largura >= 2x altura).
+     * Mesma regra do ImagemService.
+     */
+    public boolean isCortavel() {
+        return largura != null && altura != null && largura >= altura * 2;
+    }
+
+    /**
+     * Indica se o tipo de crop informado corta efetivamente esta imagem.
+     */
+    public boolean cortaCom(TipoCrop tipoCrop) {
+        return tipoCrop != TipoCrop.COMPLETO && isCortavel();
+    }
+}
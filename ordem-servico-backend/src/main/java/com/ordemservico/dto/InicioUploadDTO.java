@@ -0,0 +1,44 @@
+package com.ordemservico.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * DTO para iniciar um upload em partes (retomável).
+ */
+public class InicioUploadDTO {
+
+    @NotBlank(message = "Nome do arquivo é obrigatório")
+    private String nome;
+
+    @NotNull(message = "Tamanho do arquivo é obrigatório")
+    @Positive(message = "Tamanho do arquivo deve ser positivo")
+    private Long tamanho;
+
+    // Construtores
+    public InicioUploadDTO() {
+    }
+
+    public InicioUploadDTO(String nome, Long tamanho) {
+        this.nome = nome;
+        this.tamanho = tamanho;
+    }
+
+    // Getters e Setters
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public Long getTamanho() {
+        return tamanho;
+    }
+
+    public void setTamanho(Long tamanho) {
+        this.tamanho = tamanho;
+    }
+}
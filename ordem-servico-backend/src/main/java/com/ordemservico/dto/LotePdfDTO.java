@@ -0,0 +1,81 @@
+package com.ordemservico.dto;
+
+import com.ordemservico.domain.enums.FormatoLote;
+import com.ordemservico.domain.enums.PerfilRenderizacao;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO para impressão em lote: ordens por lista de ids ou por intervalo de datas.
+ */
+public class LotePdfDTO {
+
+    /**
+     * Ids das ordens, na ordem de impressão. Se vazio, usa o intervalo de datas.
+     */
+    private List<Long> ids = new ArrayList<>();
+
+    private LocalDate dataInicio;
+    private LocalDate dataFim;
+
+    @NotNull
+    private FormatoLote formato = FormatoLote.PDF;
+
+    @NotNull
+    private PerfilRenderizacao perfil = PerfilRenderizacao.PADRAO;
+
+    // Construtores
+    public LotePdfDTO() {
+    }
+
+    public LotePdfDTO(List<Long> ids, LocalDate dataInicio, LocalDate dataFim, FormatoLote formato) {
+        this.ids = ids != null ? ids : new ArrayList<>();
+        this.dataInicio = dataInicio;
+        this.dataFim = dataFim;
+        this.formato = formato;
+    }
+
+    // Getters e Setters
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public LocalDate getDataInicio() {
+        return dataInicio;
+    }
+
+    public void setDataInicio(LocalDate dataInicio) {
+        this.dataInicio = dataInicio;
+    }
+
+    public LocalDate getDataFim() {
+        return dataFim;
+    }
+
+    public void setDataFim(LocalDate dataFim) {
+        this.dataFim = dataFim;
+    }
+
+    public FormatoLote getFormato() {
+        return formato;
+    }
+
+    public void setFormato(FormatoLote formato) {
+        this.formato = formato;
+    }
+
+    public PerfilRenderizacao getPerfil() {
+        return perfil;
+    }
+
+    public void setPerfil(PerfilRenderizacao perfil) {
+        this.perfil = perfil;
+    }
+}
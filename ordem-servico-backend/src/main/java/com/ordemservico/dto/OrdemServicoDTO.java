@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -45,6 +46,17 @@ public class OrdemServicoDTO {
     @Valid
     private List<ItemOrdemDTO> itens = new ArrayList<>();
 
+    /**
+     * Identificador único da ordem (somente leitura, definido pelo servidor).
+     */
+    private String identificador;
+
+    /**
+     * Versão da ordem (somente leitura, definida pelo servidor).
+     */
+    private Long versao;
+    private LocalDateTime atualizadoEm;
+
     // Construtores
     public OrdemServicoDTO() {
     }
@@ -173,4 +185,28 @@ public class OrdemServicoDTO {
     public void setItens(List<ItemOrdemDTO> itens) {
         this.itens = itens;
     }
+
+    public String getIdentificador() {
+        return identificador;
+    }
+
+    public void setIdentificador(String identificador) {
+        this.identificador = identificador;
+    }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    public LocalDateTime getAtualizadoEm() {
+        return atualizadoEm;
+    }
+
+    public void setAtualizadoEm(LocalDateTime atualizadoEm) {
+        this.atualizadoEm = atualizadoEm;
+    }
 }
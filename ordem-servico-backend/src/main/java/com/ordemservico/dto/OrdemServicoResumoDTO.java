@@ -0,0 +1,93 @@
+package com.ordemservico.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Resumo de uma ordem para listagens: cabeçalho e totais, sem os itens.
+ * 
+ * Preenchido diretamente pela consulta (projeção JPQL), com as contagens
+ * calculadas no banco.
+ */
+public class OrdemServicoResumoDTO {
+
+    private Long id;
+    private String cliente;
+    private LocalDate data;
+    private LocalTime hora;
+    private String tecido;
+    private long quantidadeItens;
+    private long quantidadePaginas;
+
+    // Construtores
+    public OrdemServicoResumoDTO() {
+    }
+
+    public OrdemServicoResumoDTO(Long id, String cliente, LocalDate data, LocalTime hora, String tecido,
+                                 long quantidadeItens, long quantidadePaginas) {
+        this.id = id;
+        this.cliente = cliente;
+        this.data = data;
+        this.hora = hora;
+        this.tecido = tecido;
+        this.quantidadeItens = quantidadeItens;
+        this.quantidadePaginas = quantidadePaginas;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCliente() {
+        return cliente;
+    }
+
+    public void setCliente(String cliente) {
+        this.cliente = cliente;
+    }
+
+    public LocalDate getData() {
+        return data;
+    }
+
+    public void setData(LocalDate data) {
+        this.data = data;
+    }
+
+    public LocalTime getHora() {
+        return hora;
+    }
+
+    public void setHora(LocalTime hora) {
+        this.hora = hora;
+    }
+
+    public String getTecido() {
+        return tecido;
+    }
+
+    public void setTecido(String tecido) {
+        this.tecido = tecido;
+    }
+
+    public long getQuantidadeItens() {
+        return quantidadeItens;
+    }
+
+    public void setQuantidadeItens(long quantidadeItens) {
+        this.quantidadeItens = quantidadeItens;
+    }
+
+    public long getQuantidadePaginas() {
+        return quantidadePaginas;
+    }
+
+    public void setQuantidadePaginas(long quantidadePaginas) {
+        this.quantidadePaginas = quantidadePaginas;
+    }
+}
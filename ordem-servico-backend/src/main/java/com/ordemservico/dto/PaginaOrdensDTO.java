@@ -0,0 +1,42 @@
+package com.ordemservico.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uma página da listagem de ordens (paginação por cursor).
+ * 
+ * Para obter a página seguinte, repita a consulta com os mesmos filtros
+ * e cursor = proximoCursor. proximoCursor nulo indica a última página.
+ */
+public class PaginaOrdensDTO {
+
+    private List<OrdemServicoDTO> ordens = new ArrayList<>();
+    private String proximoCursor;
+
+    // Construtores
+    public PaginaOrdensDTO() {
+    }
+
+    public PaginaOrdensDTO(List<OrdemServicoDTO> ordens, String proximoCursor) {
+        this.ordens = ordens != null ? ordens : new ArrayList<>();
+        this.proximoCursor = proximoCursor;
+    }
+
+    // Getters e Setters
+    public List<OrdemServicoDTO> getOrdens() {
+        return ordens;
+    }
+
+    public void setOrdens(List<OrdemServicoDTO> ordens) {
+        this.ordens = ordens;
+    }
+
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+
+    public void setProximoCursor(String proximoCursor) {
+        this.proximoCursor = proximoCursor;
+    }
+}
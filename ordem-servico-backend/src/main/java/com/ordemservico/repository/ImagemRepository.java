@@ -0,0 +1,54 @@
+package com.ordemservico.repository;
+
+import com.ordemservico.domain.entity.Imagem;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositório para os metadados de imagens armazenadas.
+ */
+@Repository
+public interface ImagemRepository extends JpaRepository<Imagem, Long> {
+
+    /**
+     * Busca os metadados pelo nome do arquivo.
+     */
+    Optional<Imagem> findByNome(String nome);
+
+    /**
+     * Remove os metadados de um arquivo.
+     */
+    void deleteByNome(String nome);
+
+    /**
+     * Marca o uso de uma imagem (upload ou consulta por hash).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Imagem i SET i.usadoEm = :agora WHERE i.nome = :nome")
+    int marcarUso(@Param("nome") String nome, @Param("agora") LocalDateTime agora);
+
+    /**
+     * Verifica se uma imagem foi usada a partir do instante informado.
+     */
+    @Query("SELECT COUNT(i) > 0 FROM Imagem i "
+            + "WHERE i.nome = :nome AND COALESCE(i.usadoEm, i.criadoEm) >= :desde")
+    boolean usadaDesde(@Param("nome") String nome, @Param("desde") LocalDateTime desde);
+
+    /**
+     * Imagens que nenhum item referencia e que não são usadas desde o instante informado.
+     */
+    @Query("SELECT i.nome FROM Imagem i WHERE COALESCE(i.usadoEm, i.criadoEm) < :desde "
+            + "AND NOT EXISTS (SELECT 1 FROM ItemOrdem item WHERE item.caminhoImagem = i.nome) "
+            + "ORDER BY COALESCE(i.usadoEm, i.criadoEm)")
+    List<String> findNomesSemReferenciaNaoUsadosDesde(@Param("desde") LocalDateTime desde, Limit quantidade);
+}
@@ -2,6 +2,8 @@ package com.ordemservico.repository;
 
 import com.ordemservico.domain.entity.ItemOrdem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -27,6 +29,24 @@ public interface ItemOrdemRepository extends JpaRepository<ItemOrdem, Long> {
      */
     List<ItemOrdem> findByOrdemServicoIdAndNumeroPagina(Long ordemServicoId, Integer numeroPagina);
 
+    /**
+     * Busca itens de uma página específica de uma ordem, ordenados por linha.
+     */
+    List<ItemOrdem> findByOrdemServicoIdAndNumeroPaginaOrderByNumeroLinhaAsc(Long ordemServicoId,
+                                                                            Integer numeroPagina);
+
+    /**
+     * Números das páginas de uma ordem, em ordem crescente.
+     */
+    @Query("SELECT DISTINCT i.numeroPagina FROM ItemOrdem i WHERE i.ordemServico.id = :ordemServicoId "
+            + "ORDER BY i.numeroPagina")
+    List<Integer> findNumerosPaginaByOrdemServicoId(@Param("ordemServicoId") Long ordemServicoId);
+
+    /**
+     * Conta quantos itens referenciam uma imagem (contagem de referências do arquivo).
+     */
+    long countByCaminhoImagem(String caminhoImagem);
+
     /**
      * Deleta todos os itens de uma ordem.
      */
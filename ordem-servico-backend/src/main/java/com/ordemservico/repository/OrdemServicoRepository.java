@@ -1,7 +1,10 @@
 package com.ordemservico.repository;
 
 import com.ordemservico.domain.entity.OrdemServico;
+import com.ordemservico.dto.OrdemServicoResumoDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,12 +16,16 @@ import java.util.List;
  * Repositório para operações de persistência da entidade OrdemServico.
  */
 @Repository
-public interface OrdemServicoRepository extends JpaRepository<OrdemServico, Long> {
+public interface OrdemServicoRepository extends JpaRepository<OrdemServico, Long>,
+        JpaSpecificationExecutor<OrdemServico> {
 
     /**
-     * Busca ordens de serviço por cliente (case-insensitive).
+     * Busca ordens de serviço por cliente (case-insensitive), com seus itens
+     * (fetch join para evitar N+1).
      */
-    List<OrdemServico> findByClienteContainingIgnoreCase(String cliente);
+    @Query("SELECT DISTINCT o FROM OrdemServico o LEFT JOIN FETCH o.itens "
+            + "WHERE LOWER(o.cliente) LIKE LOWER(CONCAT('%', :cliente, '%'))")
+    List<OrdemServico> findByClienteContainingIgnoreCase(@Param("cliente") String cliente);
 
     /**
      * Busca ordens de serviço por data.
@@ -30,14 +37,37 @@ public interface OrdemServicoRepository extends JpaRepository<OrdemServico, Long
      */
     List<OrdemServico> findByDataBetween(LocalDate dataInicio, LocalDate dataFim);
 
-    /**
-     * Busca ordens de serviço ordenadas por data decrescente.
-     */
-    List<OrdemServico> findAllByOrderByDataDescHoraDesc();
-
     /**
      * Busca ordens com seus itens (fetch join para evitar N+1).
      */
     @Query("SELECT DISTINCT o FROM OrdemServico o LEFT JOIN FETCH o.itens WHERE o.id = :id")
     OrdemServico findByIdWithItens(@Param("id") Long id);
+
+    /**
+     * Resumos das ordens (mais recentes primeiro) com as quantidades de itens
+     * e de páginas, em uma única consulta agregada.
+     * 
+     * @param cliente Parte do nome do cliente (case-insensitive), ou nulo para todas
+     */
+    @Query("SELECT new com.ordemservico.dto.OrdemServicoResumoDTO("
+            + "o.id, o.cliente, o.data, o.hora, o.tecido, COUNT(i), COUNT(DISTINCT i.numeroPagina)) "
+            + "FROM OrdemServico o LEFT JOIN o.itens i "
+            + "WHERE :cliente IS NULL OR LOWER(o.cliente) LIKE LOWER(CONCAT('%', :cliente, '%')) "
+            + "GROUP BY o.id, o.cliente, o.data, o.hora, o.tecido "
+            + "ORDER BY o.data DESC, o.hora DESC, o.id DESC")
+    List<OrdemServicoResumoDTO> findResumos(@Param("cliente") String cliente, Limit limite);
+
+    /**
+     * Versão atual de uma ordem, ou nulo se ela não existir mais.
+     */
+    @Query("SELECT o.versao FROM OrdemServico o WHERE o.id = :id")
+    Long findVersaoById(@Param("id") Long id);
+
+    /**
+     * Ids das ordens de um intervalo de datas, em ordem cronológica.
+     */
+    @Query("SELECT o.id FROM OrdemServico o WHERE o.data BETWEEN :dataInicio AND :dataFim "
+            + "ORDER BY o.data, o.hora, o.id")
+    List<Long> findIdsByDataBetween(@Param("dataInicio") LocalDate dataInicio,
+                                    @Param("dataFim") LocalDate dataFim);
 }
@@ -0,0 +1,82 @@
+package com.ordemservico.repository;
+
+import com.ordemservico.domain.entity.OrdemServico;
+import com.ordemservico.dto.FiltroOrdensDTO;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Critérios da listagem de ordens.
+ * 
+ * Apenas os filtros informados entram na consulta, de forma que o banco
+ * usa o índice (data, hora, id) tanto para a ordenação quanto para o cursor.
+ */
+public final class OrdemServicoSpecifications {
+
+    /**
+     * Ordem da listagem: mais recentes primeiro, com id como desempate.
+     */
+    public static final Sort MAIS_RECENTES = Sort.by(
+            Sort.Order.desc("data"), Sort.Order.desc("hora"), Sort.Order.desc("id"));
+
+    /**
+     * Caractere de escape do LIKE: "%" e "_" digitados são procurados literalmente.
+     */
+    private static final char ESCAPE = '\\';
+
+    private OrdemServicoSpecifications() {
+    }
+
+    /**
+     * Combinação dos filtros informados (campos nulos ou vazios são ignorados).
+     */
+    public static Specification<OrdemServico> filtros(FiltroOrdensDTO filtro) {
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+            contem(predicados, root, cb, "cliente", filtro.getCliente());
+            contem(predicados, root, cb, "tecido", filtro.getTecido());
+            contem(predicados, root, cb, "papel", filtro.getPapel());
+            if (filtro.getDataInicio() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("data"), filtro.getDataInicio()));
+            }
+            if (filtro.getDataFim() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("data"), filtro.getDataFim()));
+            }
+            return cb.and(predicados.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Ordens posteriores ao cursor na ordem MAIS_RECENTES:
+     * (data, hora, id) < (dataCursor, horaCursor, idCursor).
+     */
+    public static Specification<OrdemServico> depoisDe(LocalDate data, LocalTime hora, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("data"), data),
+                cb.and(cb.equal(root.get("data"), data), cb.lessThan(root.get("hora"), hora)),
+                cb.and(cb.equal(root.get("data"), data), cb.equal(root.get("hora"), hora),
+                        cb.lessThan(root.get("id"), id)));
+    }
+
+    private static void contem(List<Predicate> predicados, Root<OrdemServico> root, CriteriaBuilder cb,
+                               String campo, String valor) {
+        if (valor != null && !valor.isBlank()) {
+            String padrao = "%" + escaparLike(valor.trim().toLowerCase()) + "%";
+            predicados.add(cb.like(cb.lower(root.get(campo)), padrao, ESCAPE));
+        }
+    }
+
+    private static String escaparLike(String valor) {
+        return valor.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,16 @@
+package com.ordemservico.service;
+
+/**
+ * Lançada quando o servidor não tem memória disponível para decodificar
+ * uma imagem dentro do tempo máximo de espera.
+ * 
+ * Indica sobrecarga temporária: a requisição pode ser repetida depois.
+ */
+public class CapacidadeExcedidaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CapacidadeExcedidaException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -0,0 +1,126 @@
+package com.ordemservico.service;
+
+import com.ordemservico.cache.CacheLimitadoPorBytes;
+import com.ordemservico.domain.enums.StatusDerivada;
+import com.ordemservico.domain.enums.TipoCrop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Geração assíncrona das derivadas de uma imagem logo após o upload.
+ * 
+ * Para cada imagem são geradas:
+ * - As versões ESQUERDA, DIREITA e COMPLETO no tamanho do PDF
+ *   (gravadas no cache de imagens processadas)
+ * - Uma miniatura para exibição no formulário
+ * 
+ * Assim o upload continua rápido e a geração do PDF passa a apenas
+ * montar o documento com imagens já prontas.
+ * 
+ * A situação de imagens na fila ou em processamento fica em um mapa limitado
+ * pela própria fila. As situações finais de falha (ERRO, DESCARTADA) ficam
+ * em um LRU com até app.imagem.derivadas.status-finais-max entradas; a
+ * conclusão com sucesso é indicada pela miniatura em disco.
+ */
+@Service
+public class DerivadaImagemService {
+
+    private static final Logger log = LoggerFactory.getLogger(DerivadaImagemService.class);
+
+    private final ImagemService imagemService;
+    private final ThreadPoolTaskExecutor executor;
+    private final Map<String, StatusDerivada> status = new ConcurrentHashMap<>();
+    private final CacheLimitadoPorBytes<String, StatusDerivada> finais;
+
+    public DerivadaImagemService(ImagemService imagemService,
+                                 @Qualifier("derivadasExecutor") ThreadPoolTaskExecutor executor,
+                                 @Value("${app.imagem.derivadas.status-finais-max:1000}") long finaisMax) {
+        this.imagemService = imagemService;
+        this.executor = executor;
+        // Peso 1 por entrada: o limite é o número de situações guardadas
+        this.finais = new CacheLimitadoPorBytes<>(finaisMax, situacao -> 1);
+    }
+
+    /**
+     * Agenda a geração das derivadas de uma imagem recém-enviada.
+     * 
+     * Imagens já processadas (mesmo conteúdo enviado novamente) são ignoradas.
+     * Nunca bloqueia: se a fila estiver cheia, a imagem é marcada como
+     * DESCARTADA e as derivadas serão geradas sob demanda.
+     */
+    public void agendar(String caminhoImagem) {
+        // Conteúdo reenviado: as derivadas do arquivo existente continuam válidas
+        if (imagemService.miniaturaExiste(caminhoImagem)) {
+            return;
+        }
+
+        finais.remover(caminhoImagem);
+        status.put(caminhoImagem, StatusDerivada.PENDENTE);
+        try {
+            executor.execute(() -> gerar(caminhoImagem));
+        } catch (TaskRejectedException e) {
+            log.warn("Fila de derivadas cheia, imagem não agendada: {}", caminhoImagem);
+            encerrar(caminhoImagem, StatusDerivada.DESCARTADA);
+        }
+    }
+
+    /**
+     * Retorna a situação das derivadas de uma imagem.
+     */
+    public StatusDerivada consultarStatus(String caminhoImagem) {
+        StatusDerivada atual = status.get(caminhoImagem);
+        if (atual == null) {
+            atual = finais.get(caminhoImagem);
+        }
+        if (atual != null) {
+            return atual;
+        }
+        // Após reinício da aplicação, a miniatura em disco indica derivadas já geradas
+        return imagemService.miniaturaExiste(caminhoImagem)
+                ? StatusDerivada.PRONTA
+                : StatusDerivada.DESCONHECIDA;
+    }
+
+    /**
+     * Remove o acompanhamento de uma imagem deletada.
+     */
+    public void esquecer(String caminhoImagem) {
+        status.remove(caminhoImagem);
+        finais.remover(caminhoImagem);
+    }
+
+    private void gerar(String caminhoImagem) {
+        status.put(caminhoImagem, StatusDerivada.PROCESSANDO);
+        long inicio = System.currentTimeMillis();
+        try {
+            for (TipoCrop tipoCrop : TipoCrop.values()) {
+                imagemService.processarImagem(caminhoImagem, tipoCrop,
+                        ImagemService.LARGURA_PDF, ImagemService.ALTURA_PDF);
+            }
+            imagemService.gerarMiniatura(caminhoImagem);
+
+            // A miniatura em disco passa a indicar a conclusão; não é preciso manter a entrada
+            status.remove(caminhoImagem);
+            log.info("Derivadas geradas para {} em {}ms", caminhoImagem, System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.error("Erro ao gerar derivadas da imagem: {}", caminhoImagem, e);
+            encerrar(caminhoImagem, StatusDerivada.ERRO);
+        }
+    }
+
+    /**
+     * Move a imagem para uma situação final de falha, no LRU limitado.
+     */
+    private void encerrar(String caminhoImagem, StatusDerivada situacao) {
+        finais.put(caminhoImagem, situacao);
+        status.remove(caminhoImagem);
+    }
+}
@@ -0,0 +1,172 @@
+package com.ordemservico.service;
+
+import com.ordemservico.cache.CacheLimitadoPorBytes;
+import com.ordemservico.cache.DiretorioLimitadoPorBytes;
+import com.ordemservico.domain.enums.TipoCrop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Cache de imagens já processadas (crop + redimensionamento).
+ *
+ * Possui duas camadas:
+ * - Memória: LRU limitado por bytes
+ * - Disco (opcional): PNGs gravados em {app.upload.dir}/.cache/processadas,
+ *   distribuídos em subdiretórios pelo LayoutArmazenamento e limitados por
+ *   bytes (app.imagem.cache.disco-max-mb), descartando os menos usados
+ *
+ * A chave inclui a data de modificação do arquivo original, de forma que
+ * uma imagem substituída nunca retorna uma versão antiga.
+ */
+@Service
+public class ImagemCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImagemCacheService.class);
+
+    private static final String DIRETORIO_CACHE = ".cache/processadas";
+
+    private final CacheLimitadoPorBytes<Chave, BufferedImage> memoria;
+    private final boolean discoHabilitado;
+    private final Path diretorioDisco;
+    private final LayoutArmazenamento layout;
+    private final DiretorioLimitadoPorBytes orcamentoDisco;
+
+    private final AtomicLong acertosDisco = new AtomicLong();
+
+    public ImagemCacheService(LayoutArmazenamento layout,
+                              @Value("${app.imagem.cache.memoria-max-mb:256}") long memoriaMaxMb,
+                              @Value("${app.imagem.cache.disco-habilitado:true}") boolean discoHabilitado,
+                              @Value("${app.imagem.cache.disco-max-mb:2048}") long discoMaxMb) {
+        this.memoria = new CacheLimitadoPorBytes<>(memoriaMaxMb * 1024 * 1024, ImagemCacheService::estimarBytes);
+        this.discoHabilitado = discoHabilitado;
+        this.diretorioDisco = layout.raiz().resolve(DIRETORIO_CACHE);
+        this.layout = layout;
+        this.orcamentoDisco = new DiretorioLimitadoPorBytes(diretorioDisco, discoMaxMb * 1024 * 1024);
+    }
+
+    /**
+     * Chave de uma imagem processada.
+     */
+    public record Chave(String caminhoImagem, TipoCrop tipoCrop, int largura, int altura, long modificadoEm) {
+
+        private String nomeArquivoDisco() {
+            return tipoCrop + "_" + largura + "x" + altura + "_" + modificadoEm + ".png";
+        }
+    }
+
+    /**
+     * Busca uma imagem processada na memória e, se necessário, no disco.
+     *
+     * @return Imagem em cache ou null
+     */
+    public BufferedImage buscar(Chave chave) {
+        BufferedImage imagem = memoria.get(chave);
+        if (imagem != null || !discoHabilitado) {
+            return imagem;
+        }
+
+        Path arquivo = caminhoDisco(chave);
+        if (!Files.exists(arquivo)) {
+            return null;
+        }
+
+        try {
+            imagem = ImageIO.read(arquivo.toFile());
+            if (imagem != null) {
+                orcamentoDisco.usado(arquivo);
+                acertosDisco.incrementAndGet();
+                memoria.put(chave, imagem);
+            }
+            return imagem;
+        } catch (IOException e) {
+            log.warn("Erro ao ler imagem do cache em disco: {}", arquivo, e);
+            return null;
+        }
+    }
+
+    /**
+     * Armazena uma imagem processada nas camadas habilitadas.
+     */
+    public void armazenar(Chave chave, BufferedImage imagem) {
+        memoria.put(chave, imagem);
+
+        if (!discoHabilitado) {
+            return;
+        }
+
+        Path arquivo = caminhoDisco(chave);
+        try {
+            Files.createDirectories(arquivo.getParent());
+            // Grava em arquivo temporário e move, para nunca expor um PNG incompleto
+            Path temporario = Files.createTempFile(arquivo.getParent(), "tmp-", ".png");
+            try {
+                ImageIO.write(imagem, "png", temporario.toFile());
+                Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+            orcamentoDisco.gravado(Files.size(arquivo));
+        } catch (IOException e) {
+            log.warn("Erro ao gravar imagem no cache em disco: {}", arquivo, e);
+        }
+    }
+
+    /**
+     * Remove todas as versões processadas de uma imagem.
+     */
+    public void invalidar(String caminhoImagem) {
+        memoria.removerSe(chave -> chave.caminhoImagem().equals(caminhoImagem));
+
+        Path diretorio = diretorioDisco.resolve(layout.subcaminho(caminhoImagem));
+        if (!Files.exists(diretorio)) {
+            return;
+        }
+
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> {
+                try {
+                    Files.deleteIfExists(arquivo);
+                } catch (IOException e) {
+                    log.warn("Erro ao remover arquivo do cache: {}", arquivo, e);
+                }
+            });
+            log.debug("Cache invalidado para imagem: {}", caminhoImagem);
+        } catch (IOException e) {
+            log.warn("Erro ao invalidar cache da imagem: {}", caminhoImagem, e);
+        }
+    }
+
+    /**
+     * Retorna os contadores do cache.
+     */
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>(memoria.estatisticas());
+        stats.put("discoHabilitado", discoHabilitado);
+        stats.put("acertosDisco", acertosDisco.get());
+        stats.putAll(orcamentoDisco.estatisticas());
+        return stats;
+    }
+
+    private Path caminhoDisco(Chave chave) {
+        return diretorioDisco.resolve(layout.subcaminho(chave.caminhoImagem())).resolve(chave.nomeArquivoDisco());
+    }
+
+    private static long estimarBytes(BufferedImage imagem) {
+        int bytesPorPixel = imagem.getColorModel().getPixelSize() / 8;
+        return (long) imagem.getWidth() * imagem.getHeight() * Math.max(bytesPorPixel, 1);
+    }
+}
@@ -0,0 +1,134 @@
+package com.ordemservico.service;
+
+import com.ordemservico.domain.entity.Imagem;
+import com.ordemservico.dto.ImagemMetadadosDTO;
+import com.ordemservico.repository.ImagemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serviço do índice de metadados de imagens (dimensões, formato, hash, tamanho).
+ *
+ * Mantém um cache em memória na frente da tabela "imagem": como os arquivos
+ * são endereçados por conteúdo, os metadados de um nome nunca mudam e podem
+ * ficar em cache até a imagem ser deletada.
+ */
+@Service
+public class ImagemMetadadosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImagemMetadadosService.class);
+
+    private final ImagemRepository repository;
+    private final Map<String, ImagemMetadadosDTO> cache = new ConcurrentHashMap<>();
+
+    public ImagemMetadadosService(ImagemRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Registra os metadados de uma imagem armazenada.
+     *
+     * Idempotente: um reenvio do mesmo conteúdo mantém o registro existente
+     * e apenas marca o seu uso.
+     * Dois uploads simultâneos do mesmo conteúdo podem tentar inserir o mesmo
+     * nome; o que perde a corrida pela restrição unique relê o registro do outro.
+     * Por isso não participa de uma transação externa: cada operação do
+     * repositório roda na sua, e a violação não marca nenhuma para rollback.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImagemMetadadosDTO registrar(String nome, int largura, int altura, String formato,
+                                        long tamanhoBytes, String hash) {
+        Optional<Imagem> existente = repository.findByNome(nome);
+        existente.ifPresent(registrada -> repository.marcarUso(nome, LocalDateTime.now()));
+        Imagem imagem = existente
+                .orElseGet(() -> inserir(new Imagem(nome, largura, altura, formato, tamanhoBytes, hash)));
+
+        ImagemMetadadosDTO dto = converterParaDTO(imagem);
+        cache.put(nome, dto);
+        log.debug("Metadados registrados: {} ({}x{})", nome, largura, altura);
+        return dto;
+    }
+
+    /**
+     * Busca os metadados de uma imagem (cache, depois banco).
+     */
+    @Transactional(readOnly = true)
+    public Optional<ImagemMetadadosDTO> buscar(String nome) {
+        ImagemMetadadosDTO emCache = cache.get(nome);
+        if (emCache != null) {
+            return Optional.of(emCache);
+        }
+
+        Optional<ImagemMetadadosDTO> encontrado = repository.findByNome(nome).map(this::converterParaDTO);
+        encontrado.ifPresent(dto -> cache.put(nome, dto));
+        return encontrado;
+    }
+
+    /**
+     * Marca o uso de uma imagem (ex.: reaproveitada por hash no lugar de um upload).
+     */
+    public void marcarUso(String nome) {
+        repository.marcarUso(nome, LocalDateTime.now());
+    }
+
+    /**
+     * Verifica se a imagem foi enviada ou consultada a partir do instante informado.
+     */
+    @Transactional(readOnly = true)
+    public boolean usadaDesde(String nome, LocalDateTime desde) {
+        return repository.usadaDesde(nome, desde);
+    }
+
+    /**
+     * Imagens sem nenhum item que as referencie e sem uso desde o instante
+     * informado, das usadas há mais tempo para as mais recentes.
+     */
+    @Transactional(readOnly = true)
+    public List<String> listarSemUso(LocalDateTime desde, int quantidade) {
+        return repository.findNomesSemReferenciaNaoUsadosDesde(desde, Limit.of(quantidade));
+    }
+
+    /**
+     * Remove os metadados de uma imagem deletada.
+     * 
+     * Sempre em transação própria: a remoção do arquivo acontece após o
+     * commit da operação que liberou a imagem (afterCommit), quando a
+     * transação original já terminou e não gravaria mais nada.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void remover(String nome) {
+        cache.remove(nome);
+        repository.deleteByNome(nome);
+    }
+
+    private Imagem inserir(Imagem imagem) {
+        try {
+            return repository.saveAndFlush(imagem);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Metadados de {} registrados por outro upload simultâneo", imagem.getNome());
+            return repository.findByNome(imagem.getNome()).orElseThrow(() -> e);
+        }
+    }
+
+    private ImagemMetadadosDTO converterParaDTO(Imagem imagem) {
+        return new ImagemMetadadosDTO(
+                imagem.getNome(),
+                imagem.getLargura(),
+                imagem.getAltura(),
+                imagem.getFormato(),
+                imagem.getTamanhoBytes(),
+                imagem.getHash(),
+                imagem.getCriadoEm());
+    }
+}
@@ -1,23 +1,51 @@
 package com.ordemservico.service;
 
 import com.ordemservico.domain.enums.TipoCrop;
+import com.ordemservico.dto.ImagemMetadadosDTO;
+import com.ordemservico.repository.ItemOrdemRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
-import java.awt.*;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Serviço para processamento e armazenamento de imagens.
@@ -29,11 +57,76 @@ public class ImagemService {
 
     private static final Logger log = LoggerFactory.getLogger(ImagemService.class);
 
-    @Value("${app.upload.dir}")
-    private String uploadDir;
-
     private static final List<String> EXTENSOES_PERMITIDAS = Arrays.asList("jpg", "jpeg", "png");
-    private static final long TAMANHO_MAXIMO = 60 * 1024 * 1024; // 60MB
+    static final long TAMANHO_MAXIMO = 60 * 1024 * 1024; // 60MB
+    private static final List<String> EXTENSOES_ARMAZENADAS = Arrays.asList("jpg", "png");
+    private static final String PREFIXO_TEMPORARIO = ".upload-";
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private static final byte[] ASSINATURA_JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] ASSINATURA_PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int TAMANHO_ASSINATURA = ASSINATURA_PNG.length;
+
+    /**
+     * Tamanho (em pixels) das imagens usadas nos blocos do PDF na resolução
+     * padrão (200x110pt a 144 DPI), pré-gerado após o upload.
+     */
+    public static final int LARGURA_PDF = 400;
+    public static final int ALTURA_PDF = 220;
+
+    /**
+     * Largura máxima das miniaturas exibidas no formulário.
+     */
+    public static final int LARGURA_MINIATURA = 320;
+
+    /**
+     * Subdiretório das miniaturas, também percorrido pela MigracaoLayoutService.
+     */
+    static final String DIRETORIO_MINIATURAS = "miniaturas";
+
+    /**
+     * Larguras das versões reduzidas servidas para exibição (?w=).
+     * A largura pedida é arredondada para a menor destas que a atenda,
+     * limitando o número de arquivos gerados por imagem.
+     */
+    public static final List<Integer> LARGURAS_EXIBICAO = List.of(160, LARGURA_MINIATURA, 640, 1280);
+
+    private static final String DIRETORIO_EXIBICAO = "exibicao";
+
+    private final ImagemCacheService cache;
+    private final RedimensionadorImagem redimensionador;
+    private final ItemOrdemRepository itemRepository;
+    private final OrcamentoDecodificacao orcamento;
+    private final ImagemMetadadosService metadados;
+    private final LayoutArmazenamento layout;
+    private final Duration carencia;
+
+    public ImagemService(ImagemCacheService cache, RedimensionadorImagem redimensionador,
+                         ItemOrdemRepository itemRepository, OrcamentoDecodificacao orcamento,
+                         ImagemMetadadosService metadados, LayoutArmazenamento layout,
+                         @Value("${app.upload.limpeza.carencia-horas:24}") long carenciaHoras) {
+        this.cache = cache;
+        this.redimensionador = redimensionador;
+        this.itemRepository = itemRepository;
+        this.orcamento = orcamento;
+        this.metadados = metadados;
+        this.layout = layout;
+        this.carencia = Duration.ofHours(carenciaHoras);
+    }
+
+    /**
+     * Resultado do armazenamento de uma imagem.
+     * 
+     * @param caminhoImagem Caminho relativo ("<hash>.<extensão>")
+     * @param hash SHA-256 do conteúdo em hexadecimal
+     * @param formato Formato detectado pelo conteúdo (jpg ou png)
+     * @param tamanhoBytes Tamanho do arquivo
+     * @param largura Largura em pixels (lida do cabeçalho)
+     * @param altura Altura em pixels (lida do cabeçalho)
+     */
+    public record ArquivoArmazenado(String caminhoImagem, String hash, String formato,
+                                    long tamanhoBytes, int largura, int altura) {
+    }
 
     /**
      * Faz upload de uma imagem e retorna o caminho relativo.
@@ -45,17 +138,163 @@ public class ImagemService {
     public String uploadImagem(MultipartFile file) throws IOException {
         validarArquivo(file);
 
-        // Gerar nome único
-        String extensao = obterExtensao(file.getOriginalFilename());
-        String nomeArquivo = UUID.randomUUID().toString() + "." + extensao;
-        
-        // Salvar arquivo
-        Path caminhoCompleto = Paths.get(uploadDir, nomeArquivo);
-        Files.createDirectories(caminhoCompleto.getParent());
-        file.transferTo(caminhoCompleto.toFile());
-        
-        log.info("Imagem salva: {}", nomeArquivo);
-        return nomeArquivo;
+        try (ReadableByteChannel origem = Channels.newChannel(file.getInputStream())) {
+            return armazenar(origem).caminhoImagem();
+        }
+    }
+
+    /**
+     * Faz upload de uma imagem lendo diretamente o corpo da requisição.
+     * 
+     * Evita o buffer do multipart: os bytes vão direto do socket para o
+     * arquivo final, e a validação acontece enquanto chegam.
+     * 
+     * @param entrada Corpo da requisição
+     * @param tamanhoDeclarado Content-Length informado (-1 se desconhecido)
+     * @return Dados da imagem armazenada
+     * @throws IOException Se o conteúdo for inválido ou houver erro de gravação
+     */
+    public ArquivoArmazenado uploadImagem(InputStream entrada, long tamanhoDeclarado) throws IOException {
+        if (tamanhoDeclarado > TAMANHO_MAXIMO) {
+            throw new IOException("Arquivo excede o tamanho máximo de 60MB");
+        }
+
+        try (ReadableByteChannel origem = Channels.newChannel(entrada)) {
+            return armazenar(origem);
+        }
+    }
+
+    /**
+     * Grava o conteúdo de um canal no armazenamento endereçado por conteúdo.
+     * 
+     * Durante a cópia:
+     * - Os primeiros bytes são conferidos contra as assinaturas JPEG/PNG
+     *   (o upload falha logo no início se não for imagem)
+     * - O SHA-256 é calculado incrementalmente
+     * - O tamanho máximo é verificado a cada bloco
+     * 
+     * O nome final é "<hash>.<extensão>". Se o mesmo conteúdo já existir,
+     * o arquivo recebido é descartado e o existente é reutilizado.
+     * Os metadados (dimensões, formato, tamanho, hash) são registrados no índice.
+     */
+    private ArquivoArmazenado armazenar(ReadableByteChannel origem) throws IOException {
+        Path diretorio = layout.raiz();
+        Files.createDirectories(diretorio);
+
+        Path temporario = Files.createTempFile(diretorio, PREFIXO_TEMPORARIO, ".tmp");
+        try {
+            MessageDigest digest = criarDigest();
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+            String formato = null;
+            long total = 0;
+
+            try (FileChannel destino = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                boolean fim = false;
+                while (!fim) {
+                    fim = origem.read(buffer) == -1;
+
+                    if (formato == null) {
+                        // Aguarda bytes suficientes para conferir a assinatura
+                        if (buffer.position() < TAMANHO_ASSINATURA && !fim) {
+                            continue;
+                        }
+                        formato = detectarFormato(buffer);
+                    }
+
+                    buffer.flip();
+                    total += buffer.remaining();
+                    if (total > TAMANHO_MAXIMO) {
+                        throw new IOException("Arquivo excede o tamanho máximo de 60MB");
+                    }
+
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        destino.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+
+            Dimension dimensoes = lerDimensoes(temporario.toFile());
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String nomeArquivo = hash + "." + formato;
+            
+            if (Files.exists(layout.localizar(nomeArquivo))) {
+                log.info("Imagem já armazenada (mesmo conteúdo): {}", nomeArquivo);
+            } else {
+                Path destino = layout.destino(nomeArquivo);
+                Files.createDirectories(destino.getParent());
+                try {
+                    Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE);
+                    log.info("Imagem salva: {} ({}x{}, {}KB)", nomeArquivo,
+                            dimensoes.width, dimensoes.height, total / 1024);
+                } catch (FileAlreadyExistsException e) {
+                    // Upload simultâneo do mesmo conteúdo chegou primeiro (onde o
+                    // sistema não substitui o destino); o arquivo é idêntico
+                    log.info("Imagem já armazenada (upload simultâneo): {}", nomeArquivo);
+                }
+            }
+
+            metadados.registrar(nomeArquivo, dimensoes.width, dimensoes.height, formato, total, hash);
+            return new ArquivoArmazenado(nomeArquivo, hash, formato, total,
+                    dimensoes.width, dimensoes.height);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    /**
+     * Identifica o formato pelos primeiros bytes (magic bytes).
+     * 
+     * @return "jpg" ou "png"
+     * @throws IOException Se o conteúdo não for JPEG nem PNG
+     */
+    private String detectarFormato(ByteBuffer inicio) throws IOException {
+        if (inicio.position() == 0) {
+            throw new IOException("Arquivo vazio");
+        }
+        if (comecaCom(inicio, ASSINATURA_JPEG)) {
+            return "jpg";
+        }
+        if (comecaCom(inicio, ASSINATURA_PNG)) {
+            return "png";
+        }
+        throw new IOException("Conteúdo não é uma imagem JPG ou PNG válida");
+    }
+
+    private boolean comecaCom(ByteBuffer buffer, byte[] assinatura) {
+        if (buffer.position() < assinatura.length) {
+            return false;
+        }
+        for (int i = 0; i < assinatura.length; i++) {
+            if (buffer.get(i) != assinatura[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Busca uma imagem já armazenada pelo hash SHA-256 do seu conteúdo.
+     * 
+     * Permite que o cliente evite reenviar um arquivo que o servidor já possui.
+     * Um acerto conta como uso da imagem (ver emCarencia), como um novo upload.
+     * 
+     * @param hash SHA-256 em hexadecimal
+     * @return Caminho relativo da imagem, ou null se não existir
+     */
+    public String buscarPorHash(String hash) {
+        if (hash == null || !hash.matches("[0-9a-fA-F]{64}")) {
+            return null;
+        }
+        for (String extensao : EXTENSOES_ARMAZENADAS) {
+            String nomeArquivo = hash.toLowerCase() + "." + extensao;
+            if (imagemExiste(nomeArquivo)) {
+                metadados.marcarUso(nomeArquivo);
+                return nomeArquivo;
+            }
+        }
+        return null;
     }
 
     /**
@@ -67,44 +306,234 @@ public class ImagemService {
      * - Direita: pega final da imagem
      * - Completo: mantém imagem inteira
      * 
+     * O resultado é guardado em cache por (arquivo, crop, tamanho, data de modificação),
+     * evitando decodificar o original novamente em reimpressões.
+     * 
      * @param caminhoImagem Caminho da imagem original
      * @param tipoCrop Tipo de corte
      * @param largura Largura final desejada
      * @param altura Altura final desejada
      * @return Imagem processada
      * @throws IOException Se houver erro ao ler a imagem
+     * @throws CapacidadeExcedidaException Se não houver memória para decodificar a tempo
      */
     public BufferedImage processarImagem(String caminhoImagem, TipoCrop tipoCrop, 
                                          int largura, int altura) throws IOException {
         
-        File arquivo = new File(uploadDir, caminhoImagem);
-        BufferedImage imagemOriginal = ImageIO.read(arquivo);
-        
-        if (imagemOriginal == null) {
-            throw new IOException("Não foi possível ler a imagem: " + caminhoImagem);
+        TipoCrop cropEfetivo = cropEfetivo(caminhoImagem, tipoCrop);
+
+        File arquivo = layout.localizar(caminhoImagem).toFile();
+        ImagemCacheService.Chave chave = new ImagemCacheService.Chave(
+                caminhoImagem, cropEfetivo, largura, altura, arquivo.lastModified());
+
+        BufferedImage emCache = cache.buscar(chave);
+        if (emCache != null) {
+            return emCache;
+        }
+
+        BufferedImage resultado = lerRedimensionado(arquivo, cropEfetivo, largura, altura);
+        cache.armazenar(chave, resultado);
+        return resultado;
+    }
+
+    /**
+     * Crop que efetivamente se aplica à imagem.
+     * 
+     * Imagens que o crop não corta geram o mesmo resultado para os três tipos:
+     * o índice de metadados permite tratá-los todos como COMPLETO e compartilhar
+     * um único resultado (cache, imagem embutida no PDF).
+     */
+    public TipoCrop cropEfetivo(String caminhoImagem, TipoCrop tipoCrop) {
+        return metadados.buscar(caminhoImagem)
+                .filter(dto -> !dto.isCortavel())
+                .map(dto -> TipoCrop.COMPLETO)
+                .orElse(tipoCrop);
+    }
+
+    /**
+     * Processa a imagem e a devolve codificada em JPEG, pronta para embutir no PDF.
+     * 
+     * Um JPEG embutido vai para o PDF como está (DCTDecode), em vez de pixels
+     * crus compactados com Flate mais uma máscara de transparência.
+     * 
+     * Quando o original já é JPEG, o crop não o corta e ele não é maior que o
+     * tamanho pedido, os bytes do arquivo são usados sem decodificar nem
+     * recomprimir (o PDF ajusta a escala na página).
+     * 
+     * @param caminhoImagem Caminho da imagem original
+     * @param tipoCrop Tipo de corte
+     * @param largura Largura máxima em pixels
+     * @param altura Altura máxima em pixels
+     * @param qualidade Qualidade do JPEG (0.0 a 1.0)
+     * @return Bytes JPEG
+     * @throws IOException Se houver erro ao ler ou codificar a imagem
+     * @throws CapacidadeExcedidaException Se não houver memória para decodificar a tempo
+     */
+    public byte[] processarImagemJpeg(String caminhoImagem, TipoCrop tipoCrop,
+                                      int largura, int altura, float qualidade) throws IOException {
+        Optional<ImagemMetadadosDTO> dados = buscarMetadados(caminhoImagem);
+        if (dados.isPresent() && podeUsarOriginal(dados.get(), tipoCrop, largura, altura)) {
+            return Files.readAllBytes(layout.localizar(caminhoImagem));
         }
 
-        BufferedImage imagemCortada = aplicarCrop(imagemOriginal, tipoCrop);
-        return redimensionar(imagemCortada, largura, altura);
+        return codificarJpeg(processarImagem(caminhoImagem, tipoCrop, largura, altura), qualidade);
+    }
+
+    private boolean podeUsarOriginal(ImagemMetadadosDTO dados, TipoCrop tipoCrop, int largura, int altura) {
+        return "jpg".equals(dados.getFormato())
+                && !dados.cortaCom(tipoCrop)
+                && dados.getLargura() <= largura
+                && dados.getAltura() <= altura;
     }
 
     /**
-     * Aplica crop na imagem conforme tipo especificado.
+     * Codifica uma imagem em JPEG com a qualidade informada.
+     * 
+     * O canal alfa é descartado (fundo branco), já que o JPEG não o suporta.
+     */
+    private byte[] codificarJpeg(BufferedImage imagem, float qualidade) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpg").next();
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (ImageOutputStream destino = ImageIO.createImageOutputStream(saida)) {
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(qualidade);
+
+            escritor.setOutput(destino);
+            escritor.write(null, new IIOImage(removerTransparencia(imagem), null, null), parametros);
+        } finally {
+            escritor.dispose();
+        }
+        return saida.toByteArray();
+    }
+
+    /**
+     * Decodifica apenas a região da imagem que sobrevive ao crop e a redimensiona.
+     * 
+     * Lê primeiro o cabeçalho (dimensões) e pede ao ImageReader somente o
+     * retângulo do crop, com subamostragem proporcional ao tamanho final.
+     * Assim o consumo de memória acompanha o tamanho de saída, e não o
+     * tamanho do arquivo original.
+     * 
+     * Antes de decodificar, reserva no OrcamentoDecodificacao a memória
+     * estimada a partir do cabeçalho, liberando-a ao fim do redimensionamento.
+     */
+    private BufferedImage lerRedimensionado(File arquivo, TipoCrop tipoCrop,
+                                            int largura, int altura) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(arquivo)) {
+            ImageReader leitor = abrirLeitor(entrada, arquivo);
+            try {
+                Rectangle regiao = calcularRegiaoCrop(leitor.getWidth(0), leitor.getHeight(0), tipoCrop);
+                int passoX = calcularSubamostragem(regiao.width, largura);
+                int passoY = calcularSubamostragem(regiao.height, altura);
+
+                ImageReadParam parametros = leitor.getDefaultReadParam();
+                parametros.setSourceRegion(regiao);
+                parametros.setSourceSubsampling(passoX, passoY, 0, 0);
+
+                long bytesEstimados = estimarMemoria(regiao.width / passoX, regiao.height / passoY,
+                        bytesPorPixel(leitor), largura, altura);
+
+                OrcamentoDecodificacao.Reserva reserva = orcamento.reservar(bytesEstimados);
+                try {
+                    BufferedImage imagemCortada = leitor.read(0, parametros);
+                    return redimensionador.redimensionar(imagemCortada, largura, altura);
+                } finally {
+                    reserva.close();
+                }
+            } finally {
+                leitor.dispose();
+            }
+        }
+    }
+
+    /**
+     * Estima a memória de uma decodificação: a imagem decodificada, no formato
+     * informado pelo leitor, mais as etapas intermediárias do redimensionamento
+     * (no máximo 1/4 dos pixels decodificados) e a imagem final, ambas em
+     * INT_RGB/INT_ARGB (4 bytes por pixel), que é o que o RedimensionadorImagem produz.
+     */
+    private long estimarMemoria(int larguraDecodificada, int alturaDecodificada, int bytesPorPixel,
+                                int largura, int altura) {
+        long pixelsDecodificados = (long) larguraDecodificada * alturaDecodificada;
+        long decodificada = pixelsDecodificados * bytesPorPixel;
+        long intermediarias = pixelsDecodificados / 4 * 4;
+        long saida = (long) largura * altura * 4;
+        return decodificada + intermediarias + saida;
+    }
+
+    /**
+     * Bytes por pixel da imagem que o leitor vai decodificar, a partir do
+     * SampleModel do tipo bruto (ou do primeiro tipo oferecido). Usa 4 (pior
+     * caso ARGB) quando o leitor não informa o tipo.
+     */
+    private int bytesPorPixel(ImageReader leitor) {
+        try {
+            ImageTypeSpecifier tipo = leitor.getRawImageType(0);
+            if (tipo == null) {
+                Iterator<ImageTypeSpecifier> tipos = leitor.getImageTypes(0);
+                tipo = tipos.hasNext() ? tipos.next() : null;
+            }
+            if (tipo == null) {
+                return 4;
+            }
+            int bits = 0;
+            for (int tamanho : tipo.getSampleModel().getSampleSize()) {
+                bits += tamanho;
+            }
+            return bits > 0 ? (bits + 7) / 8 : 4;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Tipo da imagem indisponível no cabeçalho, estimando 4 bytes por pixel: {}", e.getMessage());
+            return 4;
+        }
+    }
+
+    /**
+     * Lê apenas as dimensões da imagem, a partir do cabeçalho.
+     */
+    private Dimension lerDimensoes(File arquivo) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(arquivo)) {
+            ImageReader leitor = abrirLeitor(entrada, arquivo);
+            try {
+                return new Dimension(leitor.getWidth(0), leitor.getHeight(0));
+            } finally {
+                leitor.dispose();
+            }
+        }
+    }
+
+    /**
+     * Obtém um ImageReader posicionado no início do arquivo.
+     */
+    private ImageReader abrirLeitor(ImageInputStream entrada, File arquivo) throws IOException {
+        if (entrada == null) {
+            throw new IOException("Não foi possível ler a imagem: " + arquivo.getName());
+        }
+
+        Iterator<ImageReader> leitores = ImageIO.getImageReaders(entrada);
+        if (!leitores.hasNext()) {
+            throw new IOException("Não foi possível ler a imagem: " + arquivo.getName());
+        }
+
+        ImageReader leitor = leitores.next();
+        leitor.setInput(entrada, true, true);
+        return leitor;
+    }
+
+    /**
+     * Calcula a região da imagem original mantida pelo crop.
      * 
      * Lógica do sistema legado (linhas 274-292 do LinhaPanel):
-     * - Se modo COMPLETO: retorna imagem inteira
+     * - Se modo COMPLETO: imagem inteira
      * - Se largura >= 2x altura: corta para proporção 2:1
      *   - ESQUERDA: x=0
      *   - DIREITA: x=(largura - cropWidth)
-     * - Caso contrário: retorna imagem sem corte
+     * - Caso contrário: imagem sem corte
      */
-    private BufferedImage aplicarCrop(BufferedImage imagem, TipoCrop tipoCrop) {
-        int largura = imagem.getWidth();
-        int altura = imagem.getHeight();
-
+    private Rectangle calcularRegiaoCrop(int largura, int altura, TipoCrop tipoCrop) {
         // Modo completo: sem corte
         if (tipoCrop == TipoCrop.COMPLETO) {
-            return imagem;
+            return new Rectangle(0, 0, largura, altura);
         }
 
         // Verifica se precisa cortar (largura >= 2x altura)
@@ -115,27 +544,158 @@ public class ImagemService {
             log.debug("Aplicando crop {} - Original: {}x{}, Cortado: {}x{}, X: {}", 
                      tipoCrop, largura, altura, larguraCorte, altura, x);
             
-            return imagem.getSubimage(x, 0, larguraCorte, altura);
+            return new Rectangle(x, 0, larguraCorte, altura);
         }
 
         // Não precisa cortar
-        return imagem;
+        return new Rectangle(0, 0, largura, altura);
     }
 
     /**
-     * Redimensiona imagem mantendo qualidade.
+     * Calcula o passo de subamostragem de um eixo.
      * 
-     * Replica a lógica das linhas 318-327 do LinhaPanel.
+     * Mantém pelo menos o dobro da resolução final, para que o
+     * redimensionamento suave ainda tenha pixels para filtrar.
      */
-    private BufferedImage redimensionar(BufferedImage original, int largura, int altura) {
-        Image imagemEscalada = original.getScaledInstance(largura, altura, Image.SCALE_SMOOTH);
-        
-        BufferedImage resultado = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = resultado.createGraphics();
-        g2d.drawImage(imagemEscalada, 0, 0, null);
-        g2d.dispose();
-        
-        return resultado;
+    private int calcularSubamostragem(int tamanhoOrigem, int tamanhoDestino) {
+        return Math.max(1, tamanhoOrigem / (tamanhoDestino * 2));
+    }
+
+    /**
+     * Gera a miniatura de uma imagem para exibição no formulário.
+     * 
+     * Mantém a proporção original, com largura máxima de LARGURA_MINIATURA,
+     * e grava em JPEG no diretório de miniaturas.
+     * 
+     * @param caminhoImagem Caminho da imagem original
+     * @throws IOException Se houver erro ao ler ou gravar a imagem
+     */
+    public void gerarMiniatura(String caminhoImagem) throws IOException {
+        gravarReduzida(caminhoImagem, LARGURA_MINIATURA,
+                layout.destino(DIRETORIO_MINIATURAS, caminhoImagem + ".jpg"));
+        log.debug("Miniatura gerada: {}", caminhoImagem);
+    }
+
+    /**
+     * Grava uma versão JPEG da imagem inteira, com a largura limitada e a proporção mantida.
+     * 
+     * Escreve em arquivo temporário e move, para nunca expor um JPEG incompleto.
+     */
+    private void gravarReduzida(String caminhoImagem, int larguraMaxima, Path destino) throws IOException {
+        File arquivo = layout.localizar(caminhoImagem).toFile();
+        Dimension original = lerDimensoes(arquivo);
+
+        int largura = Math.min(larguraMaxima, original.width);
+        int altura = Math.max(1, (int) Math.round((double) original.height * largura / original.width));
+
+        BufferedImage reduzida = lerRedimensionado(arquivo, TipoCrop.COMPLETO, largura, altura);
+
+        Files.createDirectories(destino.getParent());
+        Path temporario = Files.createTempFile(destino.getParent(), "tmp-", ".jpg");
+        try {
+            ImageIO.write(removerTransparencia(reduzida), "jpg", temporario.toFile());
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    /**
+     * Define a largura a servir para uma largura pedida.
+     * 
+     * Arredonda para cima dentro de LARGURAS_EXIBICAO (ou a maior delas).
+     * 
+     * @param metadados Metadados da imagem
+     * @param larguraPedida Largura pedida pelo cliente (null = original)
+     * @return Largura da versão reduzida, ou 0 para servir o original
+     */
+    public int larguraExibicao(ImagemMetadadosDTO metadados, Integer larguraPedida) {
+        if (larguraPedida == null || larguraPedida <= 0) {
+            return 0;
+        }
+
+        int largura = LARGURAS_EXIBICAO.stream()
+                .filter(disponivel -> disponivel >= larguraPedida)
+                .findFirst()
+                .orElse(LARGURAS_EXIBICAO.get(LARGURAS_EXIBICAO.size() - 1));
+
+        // Não amplia: se o original já é menor, serve o próprio original
+        return largura >= metadados.getLargura() ? 0 : largura;
+    }
+
+    /**
+     * Arquivo a servir para exibição: o original ou uma versão reduzida.
+     * 
+     * As versões reduzidas são geradas na primeira requisição e mantidas em disco.
+     * A de LARGURA_MINIATURA é a própria miniatura gerada após o upload.
+     * 
+     * @param caminhoImagem Nome do arquivo
+     * @param largura Largura obtida de larguraExibicao (0 = original)
+     * @return Caminho do arquivo
+     * @throws IOException Se houver erro ao gerar a versão reduzida
+     */
+    public Path arquivoExibicao(String caminhoImagem, int largura) throws IOException {
+        if (largura == 0) {
+            return layout.localizar(caminhoImagem);
+        }
+
+        Path arquivo = caminhoExibicao(caminhoImagem, largura);
+        if (!Files.exists(arquivo)) {
+            Path destino = largura == LARGURA_MINIATURA
+                    ? layout.destino(DIRETORIO_MINIATURAS, caminhoImagem + ".jpg")
+                    : layout.destino(DIRETORIO_EXIBICAO + "/" + largura, caminhoImagem + ".jpg");
+            gravarReduzida(caminhoImagem, largura, destino);
+            log.debug("Versão de exibição gerada: {} ({}px)", caminhoImagem, largura);
+            return destino;
+        }
+        return arquivo;
+    }
+
+    private Path caminhoExibicao(String caminhoImagem, int largura) {
+        if (largura == LARGURA_MINIATURA) {
+            return caminhoMiniatura(caminhoImagem);
+        }
+        return layout.localizar(DIRETORIO_EXIBICAO + "/" + largura, caminhoImagem + ".jpg");
+    }
+
+    /**
+     * Verifica se a miniatura de uma imagem já foi gerada.
+     */
+    public boolean miniaturaExiste(String caminhoImagem) {
+        return Files.exists(caminhoMiniatura(caminhoImagem));
+    }
+
+    /**
+     * URL da miniatura de uma imagem, relativa a /uploads.
+     * 
+     * A localização física (distribuída em subdiretórios) é resolvida
+     * pelo handler de /uploads/**.
+     */
+    public String caminhoRelativoMiniatura(String caminhoImagem) {
+        return DIRETORIO_MINIATURAS + "/" + caminhoImagem + ".jpg";
+    }
+
+    private Path caminhoMiniatura(String caminhoImagem) {
+        return layout.localizar(DIRETORIO_MINIATURAS, caminhoImagem + ".jpg");
+    }
+
+    /**
+     * Converte para RGB (o codificador JPEG não aceita canal alfa).
+     */
+    private BufferedImage removerTransparencia(BufferedImage imagem) {
+        if (imagem.getType() == BufferedImage.TYPE_INT_RGB) {
+            return imagem;
+        }
+        BufferedImage rgb = new BufferedImage(imagem.getWidth(), imagem.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = rgb.createGraphics();
+        try {
+            g2d.setColor(Color.WHITE);
+            g2d.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
+            g2d.drawImage(imagem, 0, 0, null);
+        } finally {
+            g2d.dispose();
+        }
+        return rgb;
     }
 
     /**
@@ -156,6 +716,14 @@ public class ImagemService {
         }
     }
 
+    private MessageDigest criarDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 indisponível", e);
+        }
+    }
+
     /**
      * Obtém extensão do arquivo.
      */
@@ -167,23 +735,115 @@ public class ImagemService {
     }
 
     /**
-     * Deleta uma imagem do disco.
+     * Conta quantos itens de ordens referenciam uma imagem.
+     * 
+     * Como o armazenamento é por conteúdo, o mesmo arquivo pode ser
+     * compartilhado por várias ordens; ele só pode ser removido quando
+     * a contagem chegar a zero.
+     */
+    public long contarReferencias(String caminhoImagem) {
+        return itemRepository.countByCaminhoImagem(caminhoImagem);
+    }
+
+    /**
+     * Verifica se a imagem foi enviada ou obtida por hash dentro do período
+     * de carência (app.upload.limpeza.carencia-horas).
+     * 
+     * Uma imagem sem referências nesse período pode estar em uma ordem
+     * sendo editada e ainda não salva, e não deve ser removida.
+     */
+    public boolean emCarencia(String caminhoImagem) {
+        return metadados.usadaDesde(caminhoImagem, LocalDateTime.now().minus(carencia));
+    }
+
+    /**
+     * Imagens sem referências e fora do período de carência, prontas para remoção.
+     */
+    public List<String> listarSemUso(int quantidade) {
+        return metadados.listarSemUso(LocalDateTime.now().minus(carencia), quantidade);
+    }
+
+    /**
+     * Busca os metadados de uma imagem sem decodificar os pixels.
+     * 
+     * Imagens enviadas antes do índice existir são indexadas na primeira
+     * consulta, lendo apenas o cabeçalho do arquivo.
+     * 
+     * @param caminhoImagem Nome do arquivo
+     * @return Metadados, ou vazio se a imagem não existir
+     */
+    public Optional<ImagemMetadadosDTO> buscarMetadados(String caminhoImagem) {
+        Optional<ImagemMetadadosDTO> indexado = metadados.buscar(caminhoImagem);
+        if (indexado.isPresent()) {
+            return indexado;
+        }
+
+        Path caminho = layout.localizar(caminhoImagem);
+        if (!Files.isRegularFile(caminho)) {
+            return Optional.empty();
+        }
+
+        try {
+            Dimension dimensoes = lerDimensoes(caminho.toFile());
+            String extensao = obterExtensao(caminhoImagem).toLowerCase();
+            String formato = extensao.equals("jpeg") ? "jpg" : extensao;
+            // Nomes antigos (UUID) não carregam o hash do conteúdo
+            String nome = caminhoImagem.contains(".")
+                    ? caminhoImagem.substring(0, caminhoImagem.lastIndexOf('.'))
+                    : caminhoImagem;
+            String hash = nome.matches("[0-9a-f]{64}") ? nome : null;
+
+            return Optional.of(metadados.registrar(caminhoImagem, dimensoes.width, dimensoes.height,
+                    formato, Files.size(caminho), hash));
+        } catch (IOException e) {
+            log.warn("Não foi possível indexar a imagem: {}", caminhoImagem, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Deleta uma imagem do disco, sua miniatura, suas versões de exibição,
+     * seus metadados e suas versões processadas em cache.
      */
     public void deletarImagem(String caminhoImagem) {
+        cache.invalidar(caminhoImagem);
+        metadados.remover(caminhoImagem);
         try {
-            Path caminho = Paths.get(uploadDir, caminhoImagem);
-            Files.deleteIfExists(caminho);
+            Files.deleteIfExists(layout.localizar(caminhoImagem));
+            Files.deleteIfExists(caminhoMiniatura(caminhoImagem));
+            for (int largura : LARGURAS_EXIBICAO) {
+                Files.deleteIfExists(caminhoExibicao(caminhoImagem, largura));
+            }
             log.info("Imagem deletada: {}", caminhoImagem);
         } catch (IOException e) {
             log.error("Erro ao deletar imagem: {}", caminhoImagem, e);
         }
     }
 
+    /**
+     * Retorna as estatísticas do cache de imagens processadas.
+     */
+    public Map<String, Object> estatisticasCache() {
+        return cache.estatisticas();
+    }
+
+    /**
+     * Retorna as métricas do controle de memória das decodificações.
+     */
+    public Map<String, Object> estatisticasDecodificacao() {
+        return orcamento.estatisticas();
+    }
+
     /**
      * Verifica se uma imagem existe.
+     * 
+     * Consulta primeiro o índice de metadados; o disco só é acessado
+     * para imagens ainda não indexadas.
      */
     public boolean imagemExiste(String caminhoImagem) {
-        Path caminho = Paths.get(uploadDir, caminhoImagem);
-        return Files.exists(caminho);
+        if (metadados.buscar(caminhoImagem).isPresent()) {
+            return true;
+        }
+        return Files.exists(layout.localizar(caminhoImagem));
     }
 }
@@ -0,0 +1,102 @@
+package com.ordemservico.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Distribuição dos arquivos de upload em subdiretórios (dois níveis).
+ *
+ * Um arquivo "abcd1234....jpg" fica em "ab/cd/abcd1234....jpg", evitando
+ * centenas de milhares de arquivos em um único diretório.
+ *
+ * O nome lógico (ItemOrdem.caminhoImagem) não muda: apenas a localização
+ * física. Arquivos ainda no layout antigo (plano) continuam sendo
+ * encontrados até serem migrados.
+ */
+@Component
+public class LayoutArmazenamento {
+
+    private final Path raiz;
+
+    public LayoutArmazenamento(@Value("${app.upload.dir}") String uploadDir) {
+        this.raiz = Paths.get(uploadDir);
+    }
+
+    /**
+     * Diretório raiz dos uploads.
+     */
+    public Path raiz() {
+        return raiz;
+    }
+
+    /**
+     * Caminho distribuído de um nome, relativo ao diretório que o contém.
+     *
+     * Nomes com menos de 4 caracteres alfanuméricos iniciais ficam no nível raiz.
+     */
+    public String subcaminho(String nome) {
+        if (nome.length() < 4 || !nome.substring(0, 4).chars().allMatch(Character::isLetterOrDigit)) {
+            return nome;
+        }
+        String prefixo = nome.substring(0, 4).toLowerCase();
+        return prefixo.substring(0, 2) + "/" + prefixo.substring(2, 4) + "/" + nome;
+    }
+
+    /**
+     * Local onde um novo arquivo deve ser gravado.
+     */
+    public Path destino(String nome) {
+        return raiz.resolve(subcaminho(nome));
+    }
+
+    /**
+     * Local onde um novo arquivo deve ser gravado dentro de um subdiretório
+     * (ex.: "miniaturas").
+     */
+    public Path destino(String diretorio, String nome) {
+        return raiz.resolve(diretorio).resolve(subcaminho(nome));
+    }
+
+    /**
+     * Localiza um arquivo existente, no layout distribuído ou no antigo.
+     *
+     * Quando não é encontrado em nenhum dos dois, retorna o destino
+     * distribuído - o que também cobre um arquivo movido pela migração
+     * entre as duas verificações.
+     *
+     * @return Caminho existente, ou o destino distribuído
+     */
+    public Path localizar(String nome) {
+        return localizar(raiz, nome);
+    }
+
+    /**
+     * Localiza um arquivo existente dentro de um subdiretório.
+     */
+    public Path localizar(String diretorio, String nome) {
+        return localizar(raiz.resolve(diretorio), nome);
+    }
+
+    /**
+     * Caminho de um arquivo no layout antigo (plano).
+     */
+    public Path legado(Path diretorio, String nome) {
+        return diretorio.resolve(nome);
+    }
+
+    private Path localizar(Path diretorio, String nome) {
+        Path distribuido = diretorio.resolve(subcaminho(nome));
+        if (Files.exists(distribuido)) {
+            return distribuido;
+        }
+        Path plano = legado(diretorio, nome);
+        if (Files.exists(plano)) {
+            return plano;
+        }
+        return distribuido;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ordemservico.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Remoção periódica das imagens que nenhuma ordem usa.
+ *
+ * Como o armazenamento é por conteúdo, o mesmo arquivo pode estar em ordens
+ * salvas e em ordens ainda em edição (enviado ou reaproveitado por hash, mas
+ * sem itens gravados). Por isso uma imagem só é removida quando, além de não
+ * ter referências, ficou todo o período de carência
+ * (app.upload.limpeza.carencia-horas) sem upload nem consulta por hash.
+ *
+ * A mesma regra vale ao deletar uma ordem (OrdemServicoService.deletar):
+ * as imagens que ficaram sem referências e já estão fora da carência são
+ * removidas logo após o commit; as demais ficam para esta limpeza periódica.
+ */
+@Service
+public class LimpezaImagensService {
+
+    private static final Logger log = LoggerFactory.getLogger(LimpezaImagensService.class);
+
+    private final ImagemService imagemService;
+    private final DerivadaImagemService derivadaService;
+    private final int lote;
+
+    public LimpezaImagensService(ImagemService imagemService, DerivadaImagemService derivadaService,
+                                 @Value("${app.upload.limpeza.lote:100}") int lote) {
+        this.imagemService = imagemService;
+        this.derivadaService = derivadaService;
+        this.lote = Math.max(lote, 1);
+    }
+
+    /**
+     * Remove as imagens sem referências e fora do período de carência, em lotes.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.limpeza.intervalo-ms:600000}")
+    public void removerSemUso() {
+        int removidas = 0;
+        List<String> candidatas;
+        int removidasNoLote;
+        do {
+            candidatas = imagemService.listarSemUso(lote);
+            removidasNoLote = 0;
+            for (String caminhoImagem : candidatas) {
+                // Confere de novo: a imagem pode ter sido usada desde a consulta
+                if (imagemService.contarReferencias(caminhoImagem) > 0 || imagemService.emCarencia(caminhoImagem)) {
+                    continue;
+                }
+                imagemService.deletarImagem(caminhoImagem);
+                derivadaService.esquecer(caminhoImagem);
+                removidasNoLote++;
+            }
+            removidas += removidasNoLote;
+        } while (candidatas.size() == lote && removidasNoLote > 0);
+
+        if (removidas > 0) {
+            log.info("Limpeza de imagens: {} imagens sem uso removidas", removidas);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.ordemservico.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Migração online dos uploads do layout plano para o distribuído.
+ *
+ * Move os arquivos em lotes, com uma pausa entre lotes para não disputar
+ * disco com as requisições. Durante a migração o LayoutArmazenamento
+ * encontra cada arquivo em qualquer um dos dois layouts, então não há
+ * indisponibilidade.
+ */
+@Service
+public class MigracaoLayoutService {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracaoLayoutService.class);
+
+    private final LayoutArmazenamento layout;
+    private final int tamanhoLote;
+    private final long pausaEntreLotesMs;
+
+    private final AtomicBoolean emAndamento = new AtomicBoolean();
+    private final AtomicLong movidos = new AtomicLong();
+    private final AtomicLong duplicados = new AtomicLong();
+    private final AtomicLong erros = new AtomicLong();
+    private volatile LocalDateTime inicio;
+    private volatile LocalDateTime fim;
+
+    public MigracaoLayoutService(LayoutArmazenamento layout,
+                                 @Value("${app.upload.migracao.lote:500}") int tamanhoLote,
+                                 @Value("${app.upload.migracao.pausa-ms:200}") long pausaEntreLotesMs) {
+        this.layout = layout;
+        this.tamanhoLote = tamanhoLote;
+        this.pausaEntreLotesMs = pausaEntreLotesMs;
+    }
+
+    /**
+     * Inicia a migração em segundo plano.
+     *
+     * @return false se já houver uma migração em andamento
+     */
+    public boolean iniciar() {
+        if (!emAndamento.compareAndSet(false, true)) {
+            return false;
+        }
+
+        movidos.set(0);
+        duplicados.set(0);
+        erros.set(0);
+        inicio = LocalDateTime.now();
+        fim = null;
+
+        Thread thread = new Thread(this::migrar, "migracao-layout");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Retorna o andamento da migração.
+     */
+    public Map<String, Object> consultar() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("emAndamento", emAndamento.get());
+        status.put("movidos", movidos.get());
+        status.put("duplicados", duplicados.get());
+        status.put("erros", erros.get());
+        status.put("inicio", inicio);
+        status.put("fim", fim);
+        return status;
+    }
+
+    private void migrar() {
+        log.info("Migração de layout iniciada (lotes de {})", tamanhoLote);
+        try {
+            migrarDiretorio(layout.raiz(), null);
+            migrarDiretorio(layout.raiz().resolve(ImagemService.DIRETORIO_MINIATURAS),
+                    ImagemService.DIRETORIO_MINIATURAS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Migração de layout interrompida");
+        } catch (Exception e) {
+            log.error("Erro na migração de layout", e);
+        } finally {
+            fim = LocalDateTime.now();
+            emAndamento.set(false);
+            log.info("Migração de layout finalizada: {} movidos, {} duplicados, {} erros",
+                    movidos.get(), duplicados.get(), erros.get());
+        }
+    }
+
+    /**
+     * Move os arquivos soltos de um diretório para seus subdiretórios.
+     *
+     * Diretórios e arquivos ocultos/temporários (iniciados com ".") são ignorados.
+     */
+    private void migrarDiretorio(Path diretorio, String subdiretorio) throws IOException, InterruptedException {
+        if (!Files.isDirectory(diretorio)) {
+            return;
+        }
+
+        int noLote = 0;
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio,
+                arquivo -> Files.isRegularFile(arquivo) && !arquivo.getFileName().toString().startsWith("."))) {
+            
+            for (Path arquivo : arquivos) {
+                String nome = arquivo.getFileName().toString();
+                if (layout.subcaminho(nome).equals(nome)) {
+                    continue;
+                }
+
+                Path destino = subdiretorio == null
+                        ? layout.destino(nome)
+                        : layout.destino(subdiretorio, nome);
+                mover(arquivo, destino);
+
+                if (++noLote >= tamanhoLote) {
+                    noLote = 0;
+                    Thread.sleep(pausaEntreLotesMs);
+                }
+            }
+        }
+    }
+
+    private void mover(Path origem, Path destino) {
+        try {
+            Files.createDirectories(destino.getParent());
+            if (Files.exists(destino)) {
+                // Mesmo nome = mesmo arquivo (UUID ou hash do conteúdo)
+                Files.delete(origem);
+                duplicados.incrementAndGet();
+                return;
+            }
+            Files.move(origem, destino, StandardCopyOption.ATOMIC_MOVE);
+            movidos.incrementAndGet();
+        } catch (IOException e) {
+            erros.incrementAndGet();
+            log.warn("Erro ao migrar arquivo: {}", origem, e);
+        }
+    }
+}
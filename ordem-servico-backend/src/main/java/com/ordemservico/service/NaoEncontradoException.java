@@ -0,0 +1,15 @@
+package com.ordemservico.service;
+
+/**
+ * Lançada quando o recurso pedido (ordem, página de uma ordem) não existe.
+ * 
+ * Os controllers a traduzem em 404; qualquer outra falha é erro do servidor.
+ */
+public class NaoEncontradoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public NaoEncontradoException(String mensagem) {
+        super(mensagem);
+    }
+}
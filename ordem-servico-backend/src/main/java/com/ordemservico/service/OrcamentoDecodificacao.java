@@ -0,0 +1,132 @@
+package com.ordemservico.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controle de admissão de decodificações de imagem por orçamento de memória.
+ * 
+ * Cada decodificação reserva a memória estimada dos seus pixels
+ * (largura x altura x bytes por pixel, lidos do cabeçalho) antes de começar.
+ * Se o orçamento estiver esgotado, a decodificação espera na fila até o
+ * tempo máximo e então é rejeitada com CapacidadeExcedidaException.
+ * 
+ * Assim uma rajada de impressões degrada em latência, e não em OutOfMemoryError.
+ */
+@Component
+public class OrcamentoDecodificacao {
+
+    private static final Logger log = LoggerFactory.getLogger(OrcamentoDecodificacao.class);
+
+    /** O semáforo trabalha em KB para caber em int. */
+    private static final int BYTES_POR_PERMISSAO = 1024;
+
+    private final Semaphore permissoes;
+    private final int totalPermissoes;
+    private final long esperaMaximaMs;
+
+    private final AtomicInteger naFila = new AtomicInteger();
+    private final AtomicLong admitidas = new AtomicLong();
+    private final AtomicLong rejeitadas = new AtomicLong();
+    private final AtomicLong esperaTotalMs = new AtomicLong();
+    private final AtomicLong esperaMaximaObservadaMs = new AtomicLong();
+
+    public OrcamentoDecodificacao(@Value("${app.imagem.decodificacao.orcamento-mb:512}") long orcamentoMb,
+                                  @Value("${app.imagem.decodificacao.espera-maxima-ms:30000}") long esperaMaximaMs) {
+        this.totalPermissoes = (int) (orcamentoMb * 1024 * 1024 / BYTES_POR_PERMISSAO);
+        this.permissoes = new Semaphore(totalPermissoes, true);
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    /**
+     * Memória reservada para uma decodificação. Deve ser liberada com close().
+     */
+    public final class Reserva implements AutoCloseable {
+        private final int quantidade;
+        private boolean liberada;
+
+        private Reserva(int quantidade) {
+            this.quantidade = quantidade;
+        }
+
+        @Override
+        public void close() {
+            if (!liberada) {
+                liberada = true;
+                permissoes.release(quantidade);
+            }
+        }
+    }
+
+    /**
+     * Reserva memória para decodificar uma imagem, esperando se necessário.
+     * 
+     * Estimativas maiores que o orçamento inteiro são limitadas a ele, para que
+     * uma imagem gigante ainda possa ser processada (sozinha).
+     * 
+     * @param bytesEstimados Memória estimada da decodificação
+     * @return Reserva a ser liberada ao final do processamento
+     * @throws CapacidadeExcedidaException Se não houver memória dentro do tempo máximo
+     */
+    public Reserva reservar(long bytesEstimados) {
+        int quantidade = (int) Math.min(totalPermissoes,
+                Math.max(1, (bytesEstimados + BYTES_POR_PERMISSAO - 1) / BYTES_POR_PERMISSAO));
+
+        long inicio = System.nanoTime();
+        naFila.incrementAndGet();
+        boolean admitida;
+        try {
+            admitida = permissoes.tryAcquire(quantidade, esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitida = false;
+        } finally {
+            naFila.decrementAndGet();
+        }
+
+        long esperaMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        esperaTotalMs.addAndGet(esperaMs);
+        esperaMaximaObservadaMs.accumulateAndGet(esperaMs, Math::max);
+
+        if (!admitida) {
+            rejeitadas.incrementAndGet();
+            log.warn("Decodificação rejeitada após {}ms: {}KB não disponíveis", esperaMs, quantidade);
+            throw new CapacidadeExcedidaException(
+                    "Servidor ocupado processando imagens. Tente novamente em instantes.");
+        }
+
+        admitidas.incrementAndGet();
+        if (esperaMs > 0) {
+            log.debug("Decodificação admitida após {}ms de espera ({}KB)", esperaMs, quantidade);
+        }
+        return new Reserva(quantidade);
+    }
+
+    /**
+     * Retorna as métricas de admissão.
+     */
+    public Map<String, Object> estatisticas() {
+        long totalAdmitidas = admitidas.get();
+        long totalRejeitadas = rejeitadas.get();
+        long tentativas = totalAdmitidas + totalRejeitadas;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("orcamentoBytes", (long) totalPermissoes * BYTES_POR_PERMISSAO);
+        stats.put("emUsoBytes", (long) (totalPermissoes - permissoes.availablePermits()) * BYTES_POR_PERMISSAO);
+        stats.put("naFila", naFila.get());
+        stats.put("admitidas", totalAdmitidas);
+        stats.put("rejeitadas", totalRejeitadas);
+        stats.put("esperaMediaMs", tentativas == 0 ? 0 : esperaTotalMs.get() / tentativas);
+        stats.put("esperaMaximaMs", esperaMaximaObservadaMs.get());
+        return stats;
+    }
+}
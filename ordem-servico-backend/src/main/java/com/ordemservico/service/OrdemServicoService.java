@@ -2,17 +2,39 @@ package com.ordemservico.service;
 
 import com.ordemservico.domain.entity.ItemOrdem;
 import com.ordemservico.domain.entity.OrdemServico;
+import com.ordemservico.dto.FiltroOrdensDTO;
 import com.ordemservico.dto.ItemOrdemDTO;
 import com.ordemservico.dto.OrdemServicoDTO;
+import com.ordemservico.dto.OrdemServicoResumoDTO;
+import com.ordemservico.dto.PaginaOrdensDTO;
 import com.ordemservico.repository.OrdemServicoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static com.ordemservico.repository.OrdemServicoSpecifications.MAIS_RECENTES;
+import static com.ordemservico.repository.OrdemServicoSpecifications.depoisDe;
+import static com.ordemservico.repository.OrdemServicoSpecifications.filtros;
+
 /**
  * Serviço de negócio para Ordem de Serviço.
  */
@@ -23,10 +45,19 @@ public class OrdemServicoService {
     
     private final OrdemServicoRepository repository;
     private final ImagemService imagemService;
+    private final PdfCacheService pdfCache;
+    private final int tamanhoPaginaMax;
+    private final int resumosMax;
     
-    public OrdemServicoService(OrdemServicoRepository repository, ImagemService imagemService) {
+    public OrdemServicoService(OrdemServicoRepository repository, ImagemService imagemService,
+                               PdfCacheService pdfCache,
+                               @Value("${app.ordens.listagem.tamanho-max:100}") int tamanhoPaginaMax,
+                               @Value("${app.ordens.resumo.max:500}") int resumosMax) {
         this.repository = repository;
         this.imagemService = imagemService;
+        this.pdfCache = pdfCache;
+        this.tamanhoPaginaMax = Math.max(tamanhoPaginaMax, 1);
+        this.resumosMax = Math.max(resumosMax, 1);
     }
 
     /**
@@ -50,31 +81,96 @@ public class OrdemServicoService {
     public OrdemServicoDTO buscarPorId(Long id) {
         OrdemServico ordem = repository.findByIdWithItens(id);
         if (ordem == null) {
-            throw new RuntimeException("Ordem não encontrada: " + id);
+            throw new NaoEncontradoException("Ordem não encontrada: " + id);
         }
         return converterParaDTO(ordem);
     }
 
     /**
-     * Lista todas as ordens.
+     * Busca os dados de cabeçalho de uma ordem, sem carregar os itens.
+     * 
+     * Suficiente para gerar o PDF de uma ordem salva: o PdfService busca
+     * os itens página a página.
      */
     @Transactional(readOnly = true)
-    public List<OrdemServicoDTO> listarTodas() {
-        return repository.findAllByOrderByDataDescHoraDesc()
-                .stream()
-                .map(this::converterParaDTO)
+    public OrdemServicoDTO buscarCabecalho(Long id) {
+        OrdemServico ordem = repository.findById(id)
+                .orElseThrow(() -> new NaoEncontradoException("Ordem não encontrada: " + id));
+        return converterCabecalhoParaDTO(ordem);
+    }
+
+    /**
+     * Busca os cabeçalhos de várias ordens em uma única consulta, sem os itens.
+     * 
+     * @return Ordens na mesma sequência dos ids (ids inexistentes são ignorados)
+     */
+    @Transactional(readOnly = true)
+    public List<OrdemServicoDTO> buscarCabecalhos(List<Long> ids) {
+        Map<Long, OrdemServico> ordens = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(OrdemServico::getId, Function.identity()));
+        
+        return ids.stream()
+                .map(ordens::get)
+                .filter(Objects::nonNull)
+                .map(this::converterCabecalhoParaDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Ids das ordens de um intervalo de datas, em ordem cronológica.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> listarIdsPorPeriodo(LocalDate dataInicio, LocalDate dataFim) {
+        return repository.findIdsByDataBetween(dataInicio, dataFim);
+    }
+
+    /**
+     * Lista uma página de ordens (mais recentes primeiro), somente cabeçalhos.
+     * 
+     * A paginação é por cursor (data, hora, id da última ordem da página
+     * anterior): cada página custa uma consulta limitada pelo índice, sem
+     * OFFSET nem COUNT, qualquer que seja a profundidade da listagem.
+     * 
+     * @param filtro Filtros combináveis (campos nulos são ignorados)
+     * @param cursor proximoCursor da página anterior, ou nulo para a primeira
+     * @param tamanho Ordens por página (limitado a app.ordens.listagem.tamanho-max)
+     * @throws IllegalArgumentException Se o cursor for inválido
+     */
+    @Transactional(readOnly = true)
+    public PaginaOrdensDTO listar(FiltroOrdensDTO filtro, String cursor, int tamanho) {
+        int limite = Math.min(Math.max(tamanho, 1), tamanhoPaginaMax);
+
+        Specification<OrdemServico> criterios = filtros(filtro);
+        if (cursor != null && !cursor.isBlank()) {
+            criterios = criterios.and(decodificarCursor(cursor));
+        }
+
+        // Uma ordem a mais indica se existe próxima página
+        List<OrdemServico> ordens = repository.findBy(criterios,
+                consulta -> consulta.sortBy(MAIS_RECENTES).limit(limite + 1).all());
+
+        String proximoCursor = null;
+        if (ordens.size() > limite) {
+            ordens = ordens.subList(0, limite);
+            proximoCursor = codificarCursor(ordens.get(limite - 1));
+        }
+
+        return new PaginaOrdensDTO(
+                ordens.stream().map(this::converterCabecalhoParaDTO).collect(Collectors.toList()),
+                proximoCursor);
+    }
+
     /**
      * Atualiza uma ordem existente.
+     * 
+     * Incrementa a versão da ordem e descarta os PDFs em cache das versões anteriores.
      */
     @Transactional
     public OrdemServicoDTO atualizar(Long id, OrdemServicoDTO dto) {
         log.info("Atualizando ordem: {}", id);
         
         OrdemServico ordem = repository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Ordem não encontrada: " + id));
+                .orElseThrow(() -> new NaoEncontradoException("Ordem não encontrada: " + id));
         
         // Atualizar campos
         ordem.setCliente(dto.getCliente());
@@ -88,6 +184,8 @@ public class OrdemServicoService {
         ordem.setTecSublimatec(dto.getTecSublimatec());
         ordem.setSoImpressao(dto.getSoImpressao());
         ordem.setCalandra(dto.getCalandra());
+        // Garante o incremento da versão mesmo quando só os itens mudam
+        ordem.setAtualizadoEm(LocalDateTime.now());
         
         // Atualizar itens
         // Limpar e adicionar novos itens para garantir o relacionamento bidirecional
@@ -100,8 +198,9 @@ public class OrdemServicoService {
             
         novosItens.forEach(ordem::adicionarItem);
         
-        ordem = repository.save(ordem);
-        log.info("Ordem atualizada: {}", id);
+        ordem = repository.saveAndFlush(ordem);
+        pdfCache.invalidar(id);
+        log.info("Ordem atualizada: {} (versão {})", id, ordem.getVersao());
         
         return converterParaDTO(ordem);
     }
@@ -115,18 +214,48 @@ public class OrdemServicoService {
         
         OrdemServico ordem = repository.findByIdWithItens(id);
         if (ordem == null) {
-            throw new RuntimeException("Ordem não encontrada: " + id);
+            throw new NaoEncontradoException("Ordem não encontrada: " + id);
         }
         
-        // Deletar imagens associadas
-        ordem.getItens().forEach(item -> {
-            if (item.getCaminhoImagem() != null) {
-                imagemService.deletarImagem(item.getCaminhoImagem());
+        Set<String> imagens = ordem.getItens().stream()
+                .filter(ItemOrdem::possuiImagem)
+                .map(ItemOrdem::getCaminhoImagem)
+                .collect(Collectors.toSet());
+        
+        repository.delete(ordem);
+        repository.flush();
+        
+        // Deletar apenas imagens que nenhuma outra ordem referencia,
+        // e somente após o commit (um rollback não pode deixar itens sem arquivo).
+        // Imagens usadas no período de carência podem estar em uma ordem ainda
+        // não salva: ficam para a limpeza periódica (LimpezaImagensService)
+        List<String> orfas = imagens.stream()
+                .filter(caminho -> imagemService.contarReferencias(caminho) == 0)
+                .collect(Collectors.toList());
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orfas.stream()
+                        .filter(caminho -> !imagemService.emCarencia(caminho))
+                        .forEach(imagemService::deletarImagem);
+                pdfCache.invalidar(id);
             }
         });
         
-        repository.delete(ordem);
-        log.info("Ordem deletada: {}", id);
+        log.info("Ordem deletada: {} ({} imagens sem referências)", id, orfas.size());
+    }
+
+    /**
+     * Resumos das ordens mais recentes (até app.ordens.resumo.max), com as
+     * quantidades de itens e páginas calculadas no banco em uma única consulta.
+     * 
+     * @param cliente Parte do nome do cliente, ou nulo/vazio para todas
+     */
+    @Transactional(readOnly = true)
+    public List<OrdemServicoResumoDTO> listarResumos(String cliente) {
+        String filtro = cliente != null && !cliente.isBlank() ? cliente.trim() : null;
+        return repository.findResumos(filtro, Limit.of(resumosMax));
     }
 
     /**
@@ -180,6 +309,36 @@ public class OrdemServicoService {
     }
 
     private OrdemServicoDTO converterParaDTO(OrdemServico ordem) {
+        OrdemServicoDTO dto = converterCabecalhoParaDTO(ordem);
+        dto.setItens(ordem.getItens().stream()
+                .map(this::converterItemParaDTO)
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    /**
+     * Cursor opaco para o cliente: "data|hora|id" em Base64 (URL-safe).
+     */
+    private static String codificarCursor(OrdemServico ordem) {
+        String valor = ordem.getData() + "|" + ordem.getHora() + "|" + ordem.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Specification<OrdemServico> decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|");
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return depoisDe(LocalDate.parse(partes[0]), LocalTime.parse(partes[1]), Long.valueOf(partes[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException também é IllegalArgumentException
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    private OrdemServicoDTO converterCabecalhoParaDTO(OrdemServico ordem) {
         OrdemServicoDTO dto = new OrdemServicoDTO();
         dto.setId(ordem.getId());
         dto.setCliente(ordem.getCliente());
@@ -193,9 +352,9 @@ public class OrdemServicoService {
         dto.setTecSublimatec(ordem.getTecSublimatec());
         dto.setSoImpressao(ordem.getSoImpressao());
         dto.setCalandra(ordem.getCalandra());
-        dto.setItens(ordem.getItens().stream()
-                .map(this::converterItemParaDTO)
-                .collect(Collectors.toList()));
+        dto.setIdentificador(ordem.getIdentificador());
+        dto.setVersao(ordem.getVersao());
+        dto.setAtualizadoEm(ordem.getAtualizadoEm());
         return dto;
     }
 
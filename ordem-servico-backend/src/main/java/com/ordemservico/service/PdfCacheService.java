@@ -0,0 +1,283 @@
+package com.ordemservico.service;
+
+import com.ordemservico.cache.CacheLimitadoPorBytes;
+import com.ordemservico.cache.DiretorioLimitadoPorBytes;
+import com.ordemservico.domain.enums.PerfilRenderizacao;
+import com.ordemservico.dto.OrdemServicoDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Cache dos PDFs renderizados de ordens salvas.
+ *
+ * A chave é (id, identificador, versão, perfil): qualquer alteração da ordem
+ * incrementa a versão, então um PDF em cache nunca fica desatualizado, e cada
+ * perfil de renderização tem sua própria cópia. O identificador (UUID da
+ * ordem) impede que uma ordem nova com id e versão repetidos, após recriar
+ * ou restaurar o banco, receba o PDF de outra. Possui duas camadas:
+ * - Memória: LRU limitado por bytes
+ * - Disco (opcional): arquivos em {app.upload.dir}/.cache/pdf, limitados
+ *   por bytes (app.pdf.cache.disco-max-mb), descartando os menos usados
+ *
+ * O PDF é capturado enquanto é enviado ao cliente, sem uma renderização extra.
+ */
+@Service
+public class PdfCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfCacheService.class);
+
+    private static final String DIRETORIO_CACHE = ".cache/pdf";
+
+    private final PdfService pdfService;
+    private final CacheLimitadoPorBytes<Chave, byte[]> memoria;
+    private final long tamanhoMaximoEntrada;
+    private final boolean discoHabilitado;
+    private final Path diretorioDisco;
+    private final DiretorioLimitadoPorBytes orcamentoDisco;
+
+    private final AtomicLong acertosDisco = new AtomicLong();
+    private final AtomicLong renderizacoes = new AtomicLong();
+
+    public PdfCacheService(PdfService pdfService, LayoutArmazenamento layout,
+                           @Value("${app.pdf.cache.memoria-max-mb:64}") long memoriaMaxMb,
+                           @Value("${app.pdf.cache.entrada-max-mb:16}") long entradaMaxMb,
+                           @Value("${app.pdf.cache.disco-habilitado:true}") boolean discoHabilitado,
+                           @Value("${app.pdf.cache.disco-max-mb:1024}") long discoMaxMb) {
+        this.pdfService = pdfService;
+        this.memoria = new CacheLimitadoPorBytes<>(memoriaMaxMb * 1024 * 1024, pdf -> pdf.length);
+        this.tamanhoMaximoEntrada = entradaMaxMb * 1024 * 1024;
+        this.discoHabilitado = discoHabilitado;
+        this.diretorioDisco = layout.raiz().resolve(DIRETORIO_CACHE);
+        this.orcamentoDisco = new DiretorioLimitadoPorBytes(diretorioDisco, discoMaxMb * 1024 * 1024);
+    }
+
+    /**
+     * Chave de um PDF renderizado.
+     */
+    public record Chave(Long id, String identificador, Long versao, PerfilRenderizacao perfil) {
+
+        private static Chave de(OrdemServicoDTO ordem, PerfilRenderizacao perfil) {
+            return new Chave(ordem.getId(), ordem.getIdentificador(), ordem.getVersao(), perfil);
+        }
+
+        private String nomeArquivoDisco() {
+            return id + "-" + identificador + "-" + versao + "-" + perfil + ".pdf";
+        }
+    }
+
+    /**
+     * ETag do PDF de uma ordem em um perfil: muda sempre que a ordem é alterada
+     * e nunca se repete entre ordens diferentes com o mesmo id.
+     */
+    public String etag(OrdemServicoDTO ordem, PerfilRenderizacao perfil) {
+        return "\"" + ordem.getId() + "-" + ordem.getIdentificador() + "-" + ordem.getVersao() + "-" + perfil + "\"";
+    }
+
+    /**
+     * Escreve o PDF de uma ordem salva, do cache ou renderizando-o.
+     *
+     * Na renderização, os itens são lidos do banco e o PDF vai para a saída
+     * página a página, sendo copiado para o cache ao final (se não exceder
+     * app.pdf.cache.entrada-max-mb e se todas as imagens puderam ser incluídas).
+     *
+     * @param ordem Ordem salva (com id e versão; os itens não são necessários)
+     * @param perfil Perfil de renderização
+     * @param saida Destino do PDF
+     * @throws Exception Se houver erro na geração
+     */
+    public void escrever(OrdemServicoDTO ordem, PerfilRenderizacao perfil, OutputStream saida) throws Exception {
+        escrever(ordem, perfil, saida, paginas -> { });
+    }
+
+    /**
+     * Escreve o PDF informando o andamento a cada página renderizada.
+     * 
+     * @param paginaConcluida Recebe o número de páginas já concluídas
+     * @see #escrever(OrdemServicoDTO, PerfilRenderizacao, OutputStream)
+     */
+    public void escrever(OrdemServicoDTO ordem, PerfilRenderizacao perfil, OutputStream saida,
+                         IntConsumer paginaConcluida) throws Exception {
+        byte[] emCache = buscar(ordem, perfil);
+        if (emCache != null) {
+            saida.write(emCache);
+            return;
+        }
+
+        renderizar(ordem, perfil, saida, paginaConcluida);
+    }
+
+    /**
+     * PDF de uma ordem em cache (memória ou disco).
+     * 
+     * Só PDFs completos vão para o cache, então apenas estes bytes podem
+     * ser identificados pelo ETag da ordem.
+     *
+     * @return PDF em cache ou null
+     */
+    public byte[] buscar(OrdemServicoDTO ordem, PerfilRenderizacao perfil) {
+        return buscar(Chave.de(ordem, perfil));
+    }
+
+    /**
+     * Renderiza o PDF sem consultar o cache, copiando-o para o cache ao final
+     * se estiver completo.
+     *
+     * @see #escrever(OrdemServicoDTO, PerfilRenderizacao, OutputStream, IntConsumer)
+     */
+    public void renderizar(OrdemServicoDTO ordem, PerfilRenderizacao perfil, OutputStream saida,
+                           IntConsumer paginaConcluida) throws Exception {
+        Chave chave = Chave.de(ordem, perfil);
+
+        Captura captura = new Captura(saida, tamanhoMaximoEntrada);
+        boolean completo = pdfService.gerarPdfSalvo(ordem, perfil, captura, paginaConcluida);
+        captura.flush();
+        renderizacoes.incrementAndGet();
+
+        byte[] pdf = captura.conteudo();
+        if (pdf != null && completo) {
+            armazenar(chave, pdf);
+        }
+    }
+
+    /**
+     * Remove todas as versões em cache do PDF de uma ordem.
+     */
+    public void invalidar(Long id) {
+        memoria.removerSe(chave -> chave.id().equals(id));
+
+        if (!Files.isDirectory(diretorioDisco)) {
+            return;
+        }
+        try (Stream<Path> arquivos = Files.list(diretorioDisco)) {
+            arquivos.filter(arquivo -> arquivo.getFileName().toString().startsWith(id + "-"))
+                    .forEach(this::remover);
+            log.debug("Cache de PDF invalidado para ordem: {}", id);
+        } catch (IOException e) {
+            log.warn("Erro ao invalidar cache de PDF da ordem: {}", id, e);
+        }
+    }
+
+    /**
+     * Retorna os contadores do cache.
+     */
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>(memoria.estatisticas());
+        stats.put("discoHabilitado", discoHabilitado);
+        stats.put("acertosDisco", acertosDisco.get());
+        stats.putAll(orcamentoDisco.estatisticas());
+        stats.put("renderizacoes", renderizacoes.get());
+        return stats;
+    }
+
+    private byte[] buscar(Chave chave) {
+        byte[] pdf = memoria.get(chave);
+        if (pdf != null || !discoHabilitado) {
+            return pdf;
+        }
+
+        Path arquivo = diretorioDisco.resolve(chave.nomeArquivoDisco());
+        if (!Files.exists(arquivo)) {
+            return null;
+        }
+
+        try {
+            pdf = Files.readAllBytes(arquivo);
+            orcamentoDisco.usado(arquivo);
+            acertosDisco.incrementAndGet();
+            memoria.put(chave, pdf);
+            return pdf;
+        } catch (IOException e) {
+            log.warn("Erro ao ler PDF do cache em disco: {}", arquivo, e);
+            return null;
+        }
+    }
+
+    private void armazenar(Chave chave, byte[] pdf) {
+        memoria.put(chave, pdf);
+
+        if (!discoHabilitado) {
+            return;
+        }
+
+        Path arquivo = diretorioDisco.resolve(chave.nomeArquivoDisco());
+        try {
+            Files.createDirectories(diretorioDisco);
+            // Grava em arquivo temporário e move, para nunca expor um PDF incompleto
+            Path temporario = Files.createTempFile(diretorioDisco, "tmp-", ".pdf");
+            try {
+                Files.write(temporario, pdf);
+                Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+            orcamentoDisco.gravado(pdf.length);
+        } catch (IOException e) {
+            log.warn("Erro ao gravar PDF no cache em disco: {}", arquivo, e);
+        }
+    }
+
+    private void remover(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.warn("Erro ao remover PDF do cache: {}", arquivo, e);
+        }
+    }
+
+    /**
+     * Repassa os bytes à saída e guarda uma cópia, até o limite informado.
+     * Acima do limite a cópia é abandonada e o PDF não entra no cache.
+     */
+    private static final class Captura extends FilterOutputStream {
+
+        private final long limite;
+        private ByteArrayOutputStream copia = new ByteArrayOutputStream();
+
+        private Captura(OutputStream saida, long limite) {
+            super(saida);
+            this.limite = limite;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copiar(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copiar(b, off, len);
+        }
+
+        private void copiar(byte[] b, int off, int len) {
+            if (copia == null) {
+                return;
+            }
+            if (copia.size() + len > limite) {
+                copia = null;
+                return;
+            }
+            copia.write(b, off, len);
+        }
+
+        private byte[] conteudo() {
+            return copia != null ? copia.toByteArray() : null;
+        }
+    }
+}
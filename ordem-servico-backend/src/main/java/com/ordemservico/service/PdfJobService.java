@@ -0,0 +1,299 @@
+package com.ordemservico.service;
+
+import com.ordemservico.domain.enums.PerfilRenderizacao;
+import com.ordemservico.domain.enums.PrioridadeJobPdf;
+import com.ordemservico.domain.enums.StatusJobPdf;
+import com.ordemservico.dto.OrdemServicoDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Fila assíncrona de geração de PDF.
+ *
+ * O cliente enfileira o job, acompanha o andamento (páginas concluídas) e
+ * baixa o resultado quando pronto, sem manter uma requisição HTTP aberta
+ * durante a renderização.
+ *
+ * - Prioridade: REIMPRESSAO antes de LOTE; na mesma prioridade, ordem de chegada
+ * - Concorrência: limitada pelo pdfJobsExecutor (app.pdf.jobs.threads)
+ * - Fila: limitada (app.pdf.jobs.fila-max); acima disso o job é recusado
+ * - Retenção: resultados ficam em disco por app.pdf.jobs.retencao-minutos
+ */
+@Service
+public class PdfJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfJobService.class);
+
+    private static final String DIRETORIO_JOBS = ".cache/jobs";
+
+    private final PdfCacheService pdfCache;
+    private final PdfService pdfService;
+    private final ThreadPoolTaskExecutor executor;
+    private final Path diretorio;
+    private final int filaMaxima;
+    private final Duration retencao;
+
+    private final Map<String, JobPdf> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicInteger naFila = new AtomicInteger();
+
+    // Métricas
+    private final AtomicLong concluidos = new AtomicLong();
+    private final AtomicLong erros = new AtomicLong();
+    private final AtomicLong recusados = new AtomicLong();
+    private final AtomicLong esperaTotalMs = new AtomicLong();
+    private final AtomicLong esperaMaximaMs = new AtomicLong();
+    private final AtomicLong renderizacaoTotalMs = new AtomicLong();
+    private final AtomicLong renderizacaoMaximaMs = new AtomicLong();
+
+    public PdfJobService(PdfCacheService pdfCache, PdfService pdfService, LayoutArmazenamento layout,
+                         @Qualifier("pdfJobsExecutor") ThreadPoolTaskExecutor executor,
+                         @Value("${app.pdf.jobs.fila-max:200}") int filaMaxima,
+                         @Value("${app.pdf.jobs.retencao-minutos:30}") long retencaoMinutos) {
+        this.pdfCache = pdfCache;
+        this.pdfService = pdfService;
+        this.executor = executor;
+        this.diretorio = layout.raiz().resolve(DIRETORIO_JOBS);
+        this.filaMaxima = filaMaxima;
+        this.retencao = Duration.ofMinutes(retencaoMinutos);
+        // Os jobs ficam só em memória: o que houver no diretório é de uma execução
+        // anterior, inclusive uma encerrada sem passar pelo @PreDestroy (kill -9, queda)
+        limparDiretorio();
+    }
+
+    /**
+     * Estado de um job.
+     */
+    private final class JobPdf implements Runnable, Comparable<JobPdf> {
+        private final String id = UUID.randomUUID().toString();
+        private final long ordemChegada = sequencia.incrementAndGet();
+        private final OrdemServicoDTO ordem;
+        private final PrioridadeJobPdf prioridade;
+        private final PerfilRenderizacao perfil;
+        private final int paginasTotal;
+        private final Instant criadoEm = Instant.now();
+        private final Path arquivo = diretorio.resolve(id + ".pdf");
+
+        private volatile StatusJobPdf status = StatusJobPdf.NA_FILA;
+        private volatile int paginasConcluidas;
+        private volatile Instant iniciadoEm;
+        private volatile Instant concluidoEm;
+        private volatile String erro;
+
+        private JobPdf(OrdemServicoDTO ordem, PrioridadeJobPdf prioridade, PerfilRenderizacao perfil) {
+            this.ordem = ordem;
+            this.prioridade = prioridade;
+            this.perfil = perfil;
+            this.paginasTotal = pdfService.contarPaginasSalvas(ordem.getId());
+        }
+
+        @Override
+        public int compareTo(JobPdf outro) {
+            int porPrioridade = prioridade.compareTo(outro.prioridade);
+            return porPrioridade != 0 ? porPrioridade : Long.compare(ordemChegada, outro.ordemChegada);
+        }
+
+        @Override
+        public void run() {
+            naFila.decrementAndGet();
+            iniciadoEm = Instant.now();
+            status = StatusJobPdf.PROCESSANDO;
+            registrar(esperaTotalMs, esperaMaximaMs, Duration.between(criadoEm, iniciadoEm));
+
+            try {
+                Files.createDirectories(diretorio);
+                Path temporario = Files.createTempFile(diretorio, "tmp-", ".pdf");
+                try {
+                    try (OutputStream saida = Files.newOutputStream(temporario)) {
+                        pdfCache.escrever(ordem, perfil, saida, paginas -> paginasConcluidas = paginas);
+                    }
+                    Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temporario);
+                }
+
+                paginasConcluidas = paginasTotal;
+                status = StatusJobPdf.CONCLUIDO;
+                concluidos.incrementAndGet();
+                log.info("Job de PDF concluído: {} (ordem {})", id, ordem.getId());
+            } catch (Exception e) {
+                erro = e.getMessage();
+                status = StatusJobPdf.ERRO;
+                erros.incrementAndGet();
+                log.error("Erro no job de PDF: {} (ordem {})", id, ordem.getId(), e);
+            } finally {
+                concluidoEm = Instant.now();
+                registrar(renderizacaoTotalMs, renderizacaoMaximaMs, Duration.between(iniciadoEm, concluidoEm));
+            }
+        }
+    }
+
+    /**
+     * Enfileira a geração do PDF de uma ordem.
+     *
+     * @param ordem Ordem salva
+     * @param prioridade Prioridade na fila
+     * @param perfil Perfil de renderização
+     * @return Identificador do job
+     * @throws CapacidadeExcedidaException Se a fila estiver cheia
+     */
+    public String enfileirar(OrdemServicoDTO ordem, PrioridadeJobPdf prioridade, PerfilRenderizacao perfil) {
+        if (naFila.incrementAndGet() > filaMaxima) {
+            naFila.decrementAndGet();
+            recusados.incrementAndGet();
+            throw new CapacidadeExcedidaException("Fila de PDFs cheia (" + filaMaxima + " jobs)");
+        }
+
+        JobPdf job = new JobPdf(ordem, prioridade, perfil);
+        jobs.put(job.id, job);
+        executor.execute(job);
+
+        log.info("Job de PDF enfileirado: {} (ordem {}, {}, {})", job.id, ordem.getId(), prioridade, perfil);
+        return job.id;
+    }
+
+    /**
+     * Retorna a situação de um job.
+     */
+    public Map<String, Object> consultar(String id) {
+        JobPdf job = buscar(id);
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.id);
+        status.put("ordemId", job.ordem.getId());
+        status.put("prioridade", job.prioridade);
+        status.put("perfil", job.perfil);
+        status.put("status", job.status);
+        status.put("paginasConcluidas", job.paginasConcluidas);
+        status.put("paginasTotal", job.paginasTotal);
+        status.put("criadoEm", job.criadoEm);
+        status.put("iniciadoEm", job.iniciadoEm);
+        status.put("concluidoEm", job.concluidoEm);
+        if (job.erro != null) {
+            status.put("erro", job.erro);
+        }
+        return status;
+    }
+
+    /**
+     * Arquivo do PDF de um job concluído.
+     *
+     * @return Caminho do PDF, ou null se o job ainda não terminou com sucesso
+     */
+    public Path arquivo(String id) {
+        JobPdf job = buscar(id);
+        return job.status == StatusJobPdf.CONCLUIDO ? job.arquivo : null;
+    }
+
+    /**
+     * Id da ordem de um job (para o nome do arquivo baixado).
+     */
+    public Long ordemId(String id) {
+        return buscar(id).ordem.getId();
+    }
+
+    /**
+     * Retorna as métricas da fila.
+     */
+    public Map<String, Object> estatisticas() {
+        long finalizados = concluidos.get() + erros.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("naFila", naFila.get());
+        stats.put("filaMaxima", filaMaxima);
+        stats.put("emProcessamento", executor.getActiveCount());
+        stats.put("threads", executor.getMaxPoolSize());
+        stats.put("concluidos", concluidos.get());
+        stats.put("erros", erros.get());
+        stats.put("recusados", recusados.get());
+        stats.put("retidos", jobs.size());
+        stats.put("esperaMediaMs", finalizados == 0 ? 0 : esperaTotalMs.get() / finalizados);
+        stats.put("esperaMaximaMs", esperaMaximaMs.get());
+        stats.put("renderizacaoMediaMs", finalizados == 0 ? 0 : renderizacaoTotalMs.get() / finalizados);
+        stats.put("renderizacaoMaximaMs", renderizacaoMaximaMs.get());
+        return stats;
+    }
+
+    /**
+     * Remove jobs finalizados há mais tempo que a retenção, com seus arquivos.
+     */
+    @Scheduled(fixedDelayString = "${app.pdf.jobs.intervalo-limpeza-ms:60000}")
+    public void removerExpirados() {
+        Instant limite = Instant.now().minus(retencao);
+
+        jobs.values().stream()
+                .filter(job -> job.concluidoEm != null && job.concluidoEm.isBefore(limite))
+                .forEach(job -> {
+                    jobs.remove(job.id);
+                    remover(job.arquivo);
+                    log.debug("Job de PDF expirado: {}", job.id);
+                });
+    }
+
+    /**
+     * Remove os resultados dos jobs ao encerrar a aplicação.
+     * 
+     * Se o encerramento não passar por aqui, a limpeza acontece no próximo início.
+     */
+    @PreDestroy
+    public void encerrar() {
+        limparDiretorio();
+    }
+
+    /**
+     * Remove todos os arquivos do diretório de jobs (resultados e temporários).
+     */
+    private void limparDiretorio() {
+        if (!Files.isDirectory(diretorio)) {
+            return;
+        }
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            arquivos.forEach(this::remover);
+        } catch (IOException e) {
+            log.warn("Erro ao limpar resultados de jobs de PDF", e);
+        }
+    }
+
+    private JobPdf buscar(String id) {
+        JobPdf job = jobs.get(id);
+        if (job == null) {
+            throw new RuntimeException("Job não encontrado: " + id);
+        }
+        return job;
+    }
+
+    private void remover(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.warn("Erro ao remover resultado de job de PDF: {}", arquivo, e);
+        }
+    }
+
+    private static void registrar(AtomicLong total, AtomicLong maximo, Duration duracao) {
+        long ms = duracao.toMillis();
+        total.addAndGet(ms);
+        maximo.accumulateAndGet(ms, Math::max);
+    }
+}
@@ -0,0 +1,268 @@
+package com.ordemservico.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfSmartCopy;
+import com.ordemservico.domain.enums.FormatoLote;
+import com.ordemservico.domain.enums.PerfilRenderizacao;
+import com.ordemservico.dto.LotePdfDTO;
+import com.ordemservico.dto.OrdemServicoDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Impressão em lote: várias ordens em um único PDF ou em um ZIP com um PDF por ordem.
+ *
+ * - Os cabeçalhos das ordens são carregados do banco em blocos
+ *   (app.pdf.lote.bloco-consulta), cada bloco em uma única consulta; os
+ *   itens são lidos página a página durante a renderização
+ * - As próximas ordens (app.pdf.lote.ordens-antecipadas) são renderizadas em
+ *   paralelo no pdfLoteExecutor enquanto a atual é enviada
+ * - Cada ordem passa pelo PdfCacheService, reaproveitando PDFs, páginas e
+ *   imagens já processadas, e é enviada assim que fica pronta (flush)
+ *
+ * A memória usada depende apenas da janela de ordens antecipadas, não do
+ * tamanho do lote.
+ */
+@Service
+public class PdfLoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfLoteService.class);
+
+    private final OrdemServicoService ordemService;
+    private final PdfCacheService pdfCache;
+    private final ThreadPoolTaskExecutor executor;
+    private final int ordensAntecipadas;
+    private final int blocoConsulta;
+    private final int ordensMax;
+
+    public PdfLoteService(OrdemServicoService ordemService, PdfCacheService pdfCache,
+                          @Qualifier("pdfLoteExecutor") ThreadPoolTaskExecutor executor,
+                          @Value("${app.pdf.lote.ordens-antecipadas:4}") int ordensAntecipadas,
+                          @Value("${app.pdf.lote.bloco-consulta:50}") int blocoConsulta,
+                          @Value("${app.pdf.lote.ordens-max:500}") int ordensMax) {
+        this.ordemService = ordemService;
+        this.pdfCache = pdfCache;
+        this.executor = executor;
+        this.ordensAntecipadas = Math.max(ordensAntecipadas, 1);
+        this.blocoConsulta = Math.max(blocoConsulta, 1);
+        this.ordensMax = ordensMax;
+    }
+
+    /**
+     * Ids das ordens do lote: a lista informada ou as ordens do período.
+     *
+     * @throws IllegalArgumentException Se o lote estiver vazio ou exceder app.pdf.lote.ordens-max
+     */
+    public List<Long> resolverIds(LotePdfDTO lote) {
+        List<Long> ids;
+        if (lote.getIds() != null && !lote.getIds().isEmpty()) {
+            ids = lote.getIds().stream().distinct().toList();
+        } else if (lote.getDataInicio() != null && lote.getDataFim() != null) {
+            ids = ordemService.listarIdsPorPeriodo(lote.getDataInicio(), lote.getDataFim());
+        } else {
+            throw new IllegalArgumentException("Informe os ids ou o período (dataInicio e dataFim)");
+        }
+
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Nenhuma ordem encontrada para o lote");
+        }
+        if (ids.size() > ordensMax) {
+            throw new IllegalArgumentException(
+                    "Lote com " + ids.size() + " ordens excede o máximo de " + ordensMax);
+        }
+        return ids;
+    }
+
+    /**
+     * Escreve o lote no formato pedido. A saída não é fechada.
+     *
+     * @param ids Ordens na sequência de impressão (ids inexistentes são ignorados)
+     * @param formato PDF único ou ZIP com um PDF por ordem
+     * @param perfil Perfil de renderização de todas as ordens do lote
+     * @param saida Destino (ex.: corpo da resposta HTTP)
+     * @throws Exception Se houver erro na geração
+     */
+    public void escrever(List<Long> ids, FormatoLote formato, PerfilRenderizacao perfil, OutputStream saida)
+            throws Exception {
+        long inicio = System.currentTimeMillis();
+        Renderizacao renderizacao = new Renderizacao(ids, perfil);
+        int ordens;
+        try {
+            ordens = formato == FormatoLote.ZIP
+                    ? escreverZip(renderizacao, saida)
+                    : escreverPdf(renderizacao, saida);
+        } finally {
+            renderizacao.cancelar();
+        }
+        log.info("Lote gerado ({}): {} ordens em {} ms", formato, ordens, System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Junta as ordens em um único PDF. O PdfSmartCopy também unifica as
+     * imagens repetidas entre ordens diferentes.
+     */
+    private int escreverPdf(Renderizacao renderizacao, OutputStream saida) throws Exception {
+        Document document = new Document(PageSize.A4);
+        PdfSmartCopy copia = new PdfSmartCopy(document, saida);
+        copia.setCloseStream(false);
+        document.open();
+
+        int ordens = 0;
+        while (renderizacao.hasNext()) {
+            anexar(copia, renderizacao.next().pdf());
+            copia.flush();
+            ordens++;
+        }
+
+        document.close();
+        return ordens;
+    }
+
+    /**
+     * Um PDF por ordem dentro de um ZIP, cada entrada enviada ao ficar pronta.
+     */
+    private int escreverZip(Renderizacao renderizacao, OutputStream saida) throws Exception {
+        ZipOutputStream zip = new ZipOutputStream(saida);
+
+        int ordens = 0;
+        while (renderizacao.hasNext()) {
+            PdfOrdem pdf = renderizacao.next();
+            zip.putNextEntry(new ZipEntry("ordem_servico_" + pdf.id() + ".pdf"));
+            zip.write(pdf.pdf());
+            zip.closeEntry();
+            zip.flush();
+            ordens++;
+        }
+
+        // finish() em vez de close(): a saída pertence ao chamador
+        zip.finish();
+        zip.flush();
+        return ordens;
+    }
+
+    private void anexar(PdfSmartCopy copia, byte[] pdf) throws IOException, DocumentException {
+        PdfReader leitor = new PdfReader(pdf);
+        try {
+            for (int pagina = 1; pagina <= leitor.getNumberOfPages(); pagina++) {
+                copia.addPage(copia.getImportedPage(leitor, pagina));
+            }
+            copia.freeReader(leitor);
+        } finally {
+            leitor.close();
+        }
+    }
+
+    /**
+     * PDF renderizado de uma ordem do lote.
+     */
+    private record PdfOrdem(Long id, byte[] pdf) {
+    }
+
+    /**
+     * Percorre o lote na sequência dos ids, mantendo as próximas ordens em
+     * renderização no pdfLoteExecutor.
+     * 
+     * Ao cancelar (ex.: cliente desconectado), as renderizações em andamento
+     * são interrompidas e param na próxima página concluída.
+     */
+    private final class Renderizacao implements Iterator<PdfOrdem> {
+
+        private final List<Long> ids;
+        private final PerfilRenderizacao perfil;
+        private final Deque<OrdemServicoDTO> carregadas = new ArrayDeque<>();
+        private final Deque<Future<PdfOrdem>> emAndamento = new ArrayDeque<>();
+        private volatile boolean cancelada;
+        private int proximoBloco;
+
+        private Renderizacao(List<Long> ids, PerfilRenderizacao perfil) {
+            this.ids = ids;
+            this.perfil = perfil;
+            antecipar();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !emAndamento.isEmpty();
+        }
+
+        @Override
+        public PdfOrdem next() {
+            if (emAndamento.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Future<PdfOrdem> proxima = emAndamento.poll();
+            antecipar();
+            return aguardar(proxima);
+        }
+
+        private void antecipar() {
+            while (emAndamento.size() < ordensAntecipadas) {
+                OrdemServicoDTO ordem = proximaOrdem();
+                if (ordem == null) {
+                    return;
+                }
+                emAndamento.add(executor.submit(() -> renderizar(ordem)));
+            }
+        }
+
+        private OrdemServicoDTO proximaOrdem() {
+            while (carregadas.isEmpty() && proximoBloco < ids.size()) {
+                int fim = Math.min(proximoBloco + blocoConsulta, ids.size());
+                carregadas.addAll(ordemService.buscarCabecalhos(ids.subList(proximoBloco, fim)));
+                proximoBloco = fim;
+            }
+            return carregadas.poll();
+        }
+
+        private PdfOrdem renderizar(OrdemServicoDTO ordem) throws Exception {
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            pdfCache.escrever(ordem, perfil, pdf, paginas -> {
+                if (cancelada || Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Lote cancelado na ordem " + ordem.getId());
+                }
+            });
+            return new PdfOrdem(ordem.getId(), pdf.toByteArray());
+        }
+
+        private void cancelar() {
+            cancelada = true;
+            emAndamento.forEach(futuro -> futuro.cancel(true));
+            emAndamento.clear();
+        }
+    }
+
+    private static PdfOrdem aguardar(Future<PdfOrdem> futuro) {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Lote interrompido");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Erro ao renderizar ordem do lote", e.getCause());
+        }
+    }
+}
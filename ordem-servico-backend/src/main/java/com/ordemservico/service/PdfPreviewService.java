@@ -0,0 +1,66 @@
+package com.ordemservico.service;
+
+import com.ordemservico.domain.enums.PerfilRenderizacao;
+import com.ordemservico.dto.OrdemServicoDTO;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Preview de uma página da ordem como PNG, para atualização ao vivo no editor.
+ *
+ * A página é gerada pelo PdfService (mesmo layout e mesmo cache de páginas
+ * do PDF completo) e rasterizada em baixa resolução (app.pdf.preview.dpi).
+ * Por padrão usa o perfil RASCUNHO, cujas imagens bastam para essa resolução.
+ * Uma página que transborda o A4 é mostrada apenas na primeira folha.
+ */
+@Service
+public class PdfPreviewService {
+
+    private final PdfService pdfService;
+    private final float dpi;
+
+    public PdfPreviewService(PdfService pdfService,
+                             @Value("${app.pdf.preview.dpi:72}") float dpi) {
+        this.pdfService = pdfService;
+        this.dpi = dpi;
+    }
+
+    /**
+     * PNG de uma página de uma ordem ainda não salva.
+     *
+     * @throws NaoEncontradoException Se a ordem não tiver itens nessa página
+     */
+    public byte[] gerarPng(OrdemServicoDTO ordem, int numeroPagina, PerfilRenderizacao perfil) throws Exception {
+        return rasterizar(pdfService.gerarPagina(ordem, numeroPagina, perfil));
+    }
+
+    /**
+     * PNG de uma página de uma ordem salva.
+     *
+     * @param cabecalho Ordem salva (os itens são lidos do banco)
+     * @throws NaoEncontradoException Se a ordem não tiver itens nessa página
+     */
+    public byte[] gerarPngSalva(OrdemServicoDTO cabecalho, int numeroPagina, PerfilRenderizacao perfil)
+            throws Exception {
+        return rasterizar(pdfService.gerarPaginaSalva(cabecalho, numeroPagina, perfil));
+    }
+
+    private byte[] rasterizar(byte[] pdf) throws IOException {
+        try (PDDocument documento = Loader.loadPDF(pdf)) {
+            BufferedImage imagem = new PDFRenderer(documento).renderImageWithDPI(0, dpi, ImageType.RGB);
+
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(imagem, "png", png);
+            return png.toByteArray();
+        }
+    }
+}
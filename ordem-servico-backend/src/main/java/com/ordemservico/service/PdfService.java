@@ -1,18 +1,52 @@
 package com.ordemservico.service;
 
 import com.lowagie.text.*;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfSmartCopy;
+import com.lowagie.text.pdf.PdfTemplate;
 import com.lowagie.text.pdf.PdfWriter;
+import com.ordemservico.cache.CacheLimitadoPorBytes;
+import com.ordemservico.domain.entity.ItemOrdem;
+import com.ordemservico.domain.enums.PerfilRenderizacao;
+import com.ordemservico.domain.enums.TipoCrop;
 import com.ordemservico.dto.ItemOrdemDTO;
 import com.ordemservico.dto.OrdemServicoDTO;
+import com.ordemservico.repository.ItemOrdemRepository;
+import com.ordemservico.repository.OrdemServicoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -25,53 +59,580 @@ public class PdfService {
 
     private static final Logger log = LoggerFactory.getLogger(PdfService.class);
     
+    /**
+     * Tamanho de cada imagem na página, em pontos (1/72 de polegada).
+     */
+    private static final float LARGURA_IMAGEM_PT = 200;
+    private static final float ALTURA_IMAGEM_PT = 110;
+
+    /**
+     * Largura útil da página A4 com as margens padrão (36pt de cada lado).
+     */
+    private static final float LARGURA_UTIL_PT = PageSize.A4.getWidth() - 72;
+
+    /**
+     * Entrelinha dos parágrafos (1,5 x tamanho da fonte, padrão do OpenPDF).
+     */
+    private static final float FATOR_ENTRELINHA = 1.5f;
+
+    // Fontes resolvidas uma única vez (somente leitura, compartilhadas entre threads)
+    private static final BaseFont HELVETICA = criarBaseFont(BaseFont.HELVETICA);
+    private static final BaseFont HELVETICA_NEGRITO = criarBaseFont(BaseFont.HELVETICA_BOLD);
+    private static final Font FONTE_NORMAL = new Font(HELVETICA, 10);
+    private static final Font FONTE_ITEM = new Font(HELVETICA, 9);
+    private static final Font FONTE_ITEM_DESTAQUE = new Font(HELVETICA_NEGRITO, 9, Font.NORMAL, java.awt.Color.RED);
+
+    // Textos fixos da página
+    private static final String TITULO = "ORDEM DE SERVIÇO";
+    private static final String OBSERVACOES = "Observações: _____________________________________";
+    private static final String[] CONTROLES = {
+        "Ploteiro: ___________  Data:__/__/__  Máquina: ______",
+        "Op. Calandra: _________  Data:__/__/__",
+        "Conferente: ___________  Data:__/__/__  Revisão: ___"
+    };
+    private static final String RODAPE = "Autorizado por: ___________________________________________";
+
     private final ImagemService imagemService;
+    private final ItemOrdemRepository itemRepository;
+    private final OrdemServicoRepository ordemRepository;
+    private final Map<PerfilRenderizacao, Resolucao> resolucoes = new EnumMap<>(PerfilRenderizacao.class);
+    private final ThreadPoolTaskExecutor executor;
+    private final int paginasAntecipadas;
+    private final CacheLimitadoPorBytes<String, byte[]> paginasRenderizadas;
     
-    public PdfService(ImagemService imagemService) {
+    public PdfService(ImagemService imagemService, ItemOrdemRepository itemRepository,
+                      OrdemServicoRepository ordemRepository,
+                      @Value("${app.pdf.dpi:144}") int dpi,
+                      @Value("${app.pdf.jpeg-qualidade:0.85}") float qualidadeJpeg,
+                      @Value("${app.pdf.perfis.rascunho.dpi:72}") int dpiRascunho,
+                      @Value("${app.pdf.perfis.rascunho.jpeg-qualidade:0.5}") float qualidadeRascunho,
+                      @Value("${app.pdf.perfis.impressao.dpi:300}") int dpiImpressao,
+                      @Value("${app.pdf.perfis.impressao.jpeg-qualidade:0.95}") float qualidadeImpressao,
+                      @Qualifier("pdfExecutor") ThreadPoolTaskExecutor executor,
+                      @Value("${app.pdf.preparacao.paginas-antecipadas:4}") int paginasAntecipadas,
+                      @Value("${app.pdf.cache.paginas-max-mb:128}") long paginasMaxMb) {
         this.imagemService = imagemService;
+        this.itemRepository = itemRepository;
+        this.ordemRepository = ordemRepository;
+        this.paginasRenderizadas = new CacheLimitadoPorBytes<>(paginasMaxMb * 1024 * 1024, pdf -> pdf.length);
+        this.executor = executor;
+        this.paginasAntecipadas = Math.max(1, paginasAntecipadas);
+        resolucoes.put(PerfilRenderizacao.RASCUNHO, Resolucao.de(dpiRascunho, qualidadeRascunho));
+        resolucoes.put(PerfilRenderizacao.PADRAO, Resolucao.de(dpi, qualidadeJpeg));
+        resolucoes.put(PerfilRenderizacao.IMPRESSAO, Resolucao.de(dpiImpressao, qualidadeImpressao));
     }
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
 
     /**
-     * Gera PDF completo de uma ordem de serviço.
+     * Tamanho em pixels e qualidade JPEG das imagens de um perfil.
+     */
+    private record Resolucao(int larguraPx, int alturaPx, float qualidadeJpeg) {
+
+        private static Resolucao de(int dpi, float qualidadeJpeg) {
+            return new Resolucao(Math.round(LARGURA_IMAGEM_PT * dpi / 72),
+                    Math.round(ALTURA_IMAGEM_PT * dpi / 72), qualidadeJpeg);
+        }
+    }
+
+    /**
+     * Identifica uma imagem processada dentro de um documento.
+     */
+    private record ChaveImagem(String caminhoImagem, TipoCrop tipoCrop, int largura, int altura) {
+    }
+
+    /**
+     * Imagens de um documento em geração.
      * 
-     * Replica a lógica do PrintUtils.createMultiPagePrintable() do sistema legado.
+     * Antecipa a preparação (decodificação, crop e JPEG) das páginas seguintes
+     * no pdfExecutor e guarda as imagens embutidas na página atual, para que a
+     * mesma arte repetida em várias linhas vire um único XObject referenciado
+     * por todas. Entre páginas, a unificação fica a cargo do PdfSmartCopy.
+     * 
+     * Só ficam em memória as imagens das páginas da janela de antecipação
+     * (ver concluirPagina), qualquer que seja o número de artes distintas.
+     */
+    private final class ImagensDoDocumento {
+
+        private final Resolucao resolucao;
+        private final Map<ChaveImagem, CompletableFuture<byte[]>> preparadas = new HashMap<>();
+        private final Map<ChaveImagem, Image> embutidas = new HashMap<>();
+        private int falhas;
+
+        private ImagensDoDocumento(Resolucao resolucao) {
+            this.resolucao = resolucao;
+        }
+
+        /**
+         * Inicia a preparação das imagens distintas de uma página.
+         */
+        private void antecipar(List<ItemOrdemDTO> itens) {
+            for (ItemOrdemDTO item : itens) {
+                if (item.getCaminhoImagem() == null || item.getCaminhoImagem().isEmpty()) {
+                    continue;
+                }
+                preparadas.computeIfAbsent(chaveDe(item), this::preparar);
+            }
+        }
+
+        private CompletableFuture<byte[]> preparar(ChaveImagem chave) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return imagemService.processarImagemJpeg(
+                            chave.caminhoImagem(), chave.tipoCrop(),
+                            chave.largura(), chave.altura(), resolucao.qualidadeJpeg());
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+
+        /**
+         * Obtém a imagem de um item, aguardando sua preparação na primeira ocorrência.
+         */
+        private Image obter(ItemOrdemDTO item) throws IOException, DocumentException {
+            ChaveImagem chave = chaveDe(item);
+
+            Image imagem = embutidas.get(chave);
+            if (imagem == null) {
+                CompletableFuture<byte[]> preparacao = preparadas.computeIfAbsent(chave, this::preparar);
+                // JPEG embutido diretamente (DCTDecode), sem reconverter os pixels
+                imagem = Image.getInstance(aguardar(preparacao));
+                embutidas.put(chave, imagem);
+            }
+            return imagem;
+        }
+
+        /**
+         * Libera as imagens da página concluída, mantendo apenas as preparações
+         * usadas pelas páginas que ainda estão na janela.
+         */
+        private void concluirPagina(Collection<PaginaCarregada> restantes) {
+            embutidas.clear();
+
+            Set<ChaveImagem> necessarias = new HashSet<>();
+            for (PaginaCarregada pagina : restantes) {
+                for (ItemOrdemDTO item : pagina.itens()) {
+                    if (item.getCaminhoImagem() != null && !item.getCaminhoImagem().isEmpty()) {
+                        necessarias.add(chaveDe(item));
+                    }
+                }
+            }
+            preparadas.keySet().retainAll(necessarias);
+        }
+
+        /**
+         * Descarta as preparações que ainda não começaram (geração interrompida).
+         */
+        private void cancelar() {
+            preparadas.values().forEach(preparacao -> preparacao.cancel(false));
+            preparadas.clear();
+        }
+
+        /**
+         * Registra uma imagem que não pôde ser incluída ("[Imagem não disponível]").
+         */
+        private void registrarFalha() {
+            falhas++;
+        }
+
+        private int falhas() {
+            return falhas;
+        }
+
+        private ChaveImagem chaveDe(ItemOrdemDTO item) {
+            return new ChaveImagem(
+                    item.getCaminhoImagem(),
+                    imagemService.cropEfetivo(item.getCaminhoImagem(), item.getTipoCrop()),
+                    resolucao.larguraPx(), resolucao.alturaPx());
+        }
+    }
+
+    /**
+     * Gera PDF completo de uma ordem de serviço.
      * 
      * @param dto Dados da ordem de serviço
      * @return Bytes do PDF gerado
      * @throws Exception Se houver erro na geração
+     * @see #gerarPdf(OrdemServicoDTO, OutputStream)
      */
     public byte[] gerarPdf(OrdemServicoDTO dto) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        gerarPdf(dto, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Páginas de um documento em geração, obtidas uma a uma.
+     */
+    private interface FontePaginas {
+
+        /**
+         * Número de páginas.
+         */
+        int total();
+
+        /**
+         * Itens de uma página (índice a partir de 0), ordenados por linha.
+         */
+        List<ItemOrdemDTO> carregar(int indice);
+    }
+
+    /**
+     * Página carregada, com sua chave no cache de páginas renderizadas.
+     */
+    private record PaginaCarregada(List<ItemOrdemDTO> itens, String chave) {
+    }
+
+    /**
+     * Fragmento PDF de uma página. Um fragmento degradado (alguma imagem
+     * substituída por "[Imagem não disponível]") não entra em cache: a falha
+     * pode ser passageira (erro de leitura, arquivo reenviado).
+     */
+    private record PaginaRenderizada(byte[] pdf, boolean degradada) {
+    }
+
+    /**
+     * Gera PDF completo de uma ordem de serviço, escrevendo-o na saída informada.
+     * 
+     * Replica a lógica do PrintUtils.createMultiPagePrintable() do sistema legado.
+     * 
+     * Cada página (grupo de itens com o mesmo numeroPagina) é renderizada como
+     * um fragmento PDF independente, guardado em cache pelo hash do seu conteúdo
+     * (cabeçalho da ordem + itens da página). O documento final é costurado a
+     * partir dos fragmentos com PdfSmartCopy, que também unifica as imagens
+     * repetidas entre páginas. Assim, após a edição de uma linha, somente a
+     * página alterada é renderizada novamente.
+     * 
+     * As páginas fora do cache são renderizadas em duas etapas:
+     * 1. As imagens das próximas páginas são preparadas (decodificação, crop
+     *    e JPEG) em paralelo no pdfExecutor
+     * 2. As páginas são montadas sequencialmente, na ordem das páginas e linhas,
+     *    aguardando cada imagem apenas quando ela é necessária
+     * 
+     * Cada página concluída é enviada à saída (flush), de forma que o cliente
+     * recebe os primeiros bytes logo após a primeira página e a memória usada
+     * não cresce com o número de páginas. A saída não é fechada.
+     * 
+     * @param dto Dados da ordem de serviço
+     * @param saida Destino do PDF (ex.: corpo da resposta HTTP)
+     * @throws Exception Se houver erro na geração
+     * @see #gerarPdfSalvo(OrdemServicoDTO, PerfilRenderizacao, OutputStream, IntConsumer)
+     */
+    public void gerarPdf(OrdemServicoDTO dto, OutputStream saida) throws Exception {
+        gerarPdf(dto, PerfilRenderizacao.PADRAO, saida);
+    }
+
+    /**
+     * Gera o PDF com a resolução e a qualidade de imagem de um perfil.
+     * 
+     * @param perfil Perfil de renderização (ex.: RASCUNHO para conferência na tela)
+     * @see #gerarPdf(OrdemServicoDTO, OutputStream)
+     */
+    public void gerarPdf(OrdemServicoDTO dto, PerfilRenderizacao perfil, OutputStream saida) throws Exception {
+        List<List<ItemOrdemDTO>> paginas = agruparItensPorPagina(dto.getItens());
+        
+        gerarPdf(dto, new FontePaginas() {
+            @Override
+            public int total() {
+                return paginas.size();
+            }
+
+            @Override
+            public List<ItemOrdemDTO> carregar(int indice) {
+                return paginas.get(indice);
+            }
+        }, resolucoes.get(perfil), saida, concluidas -> { });
+    }
+
+    /**
+     * Gera o PDF de uma ordem salva lendo os itens do banco página a página.
+     * 
+     * Somente as páginas da janela de antecipação (app.pdf.preparacao.paginas-antecipadas)
+     * ficam em memória, de forma que a memória usada não depende do número
+     * de páginas da ordem. As páginas saem sempre na ordem de numeroPagina
+     * e, dentro delas, de numeroLinha.
+     * 
+     * Cada página é lida em sua própria consulta curta, sem manter uma conexão
+     * durante a renderização. A versão da ordem é conferida antes e depois:
+     * se ela mudou no meio, o PDF pode misturar duas versões e não vai para cache.
+     * 
+     * @param cabecalho Ordem salva (id, versão e campos do cabeçalho; os itens são ignorados)
+     * @param perfil Perfil de renderização
+     * @param paginaConcluida Recebe o número de páginas já concluídas
+     * @return false se alguma imagem não pôde ser incluída ou se a ordem mudou desde a
+     *         leitura do cabeçalho; um PDF assim não deve ir para cache
+     * @see #gerarPdf(OrdemServicoDTO, OutputStream)
+     */
+    public boolean gerarPdfSalvo(OrdemServicoDTO cabecalho, PerfilRenderizacao perfil, OutputStream saida,
+                                 IntConsumer paginaConcluida) throws Exception {
+        Long ordemId = cabecalho.getId();
+        Long versaoInicial = ordemRepository.findVersaoById(ordemId);
+        List<Integer> numeros = itemRepository.findNumerosPaginaByOrdemServicoId(ordemId);
+        
+        boolean completo = gerarPdf(cabecalho, new FontePaginas() {
+            @Override
+            public int total() {
+                return numeros.size();
+            }
+
+            @Override
+            public List<ItemOrdemDTO> carregar(int indice) {
+                return itemRepository
+                        .findByOrdemServicoIdAndNumeroPaginaOrderByNumeroLinhaAsc(ordemId, numeros.get(indice))
+                        .stream()
+                        .map(PdfService::converterItem)
+                        .collect(Collectors.toList());
+            }
+        }, resolucoes.get(perfil), saida, paginaConcluida);
+        
+        Long versaoFinal = ordemRepository.findVersaoById(ordemId);
+        boolean mesmaVersao = Objects.equals(versaoInicial, cabecalho.getVersao())
+                && Objects.equals(versaoFinal, cabecalho.getVersao());
+        if (!mesmaVersao) {
+            log.debug("Ordem {} alterada durante a geração do PDF (versão {} -> {} -> {}); o PDF não irá para cache",
+                    ordemId, cabecalho.getVersao(), versaoInicial, versaoFinal);
+        }
+        return completo && mesmaVersao;
+    }
+
+    /**
+     * @return false se alguma página saiu degradada (imagem não disponível)
+     */
+    private boolean gerarPdf(OrdemServicoDTO dto, FontePaginas fonte, Resolucao resolucao, OutputStream saida,
+                             IntConsumer paginaConcluida) throws Exception {
         log.info("Gerando PDF para ordem: {}", dto.getCliente());
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
         Document document = new Document(PageSize.A4);
         
         try {
-            PdfWriter.getInstance(document, baos);
+            PdfSmartCopy copia = new PdfSmartCopy(document, saida);
+            copia.setCloseStream(false);
             document.open();
 
-            // Agrupar itens por página
-            List<List<ItemOrdemDTO>> paginas = agruparItensPorPagina(dto.getItens());
-            
-            for (int i = 0; i < paginas.size(); i++) {
-                if (i > 0) {
-                    document.newPage();
+            // Uma ordem sem itens ainda gera a página do cabeçalho
+            int total = fonte.total();
+            boolean vazia = total == 0;
+            if (vazia) {
+                total = 1;
+            }
+
+            int renderizadas = 0;
+            int degradadas = 0;
+            Deque<PaginaCarregada> janela = new ArrayDeque<>();
+            int proxima = 0;
+            ImagensDoDocumento imagens = new ImagensDoDocumento(resolucao);
+            try {
+                for (int i = 0; i < total; i++) {
+                    // Etapa 1: carrega e antecipa as imagens das próximas páginas
+                    while (proxima < total && proxima <= i + paginasAntecipadas) {
+                        List<ItemOrdemDTO> itens = vazia ? List.of() : fonte.carregar(proxima);
+                        PaginaCarregada carregada = new PaginaCarregada(itens, chavePagina(dto, itens, resolucao));
+                        anteciparSeNecessario(imagens, carregada);
+                        janela.add(carregada);
+                        proxima++;
+                    }
+                    
+                    // Etapa 2: monta a página atual e a libera
+                    PaginaCarregada pagina = janela.poll();
+                    byte[] fragmento = paginasRenderizadas.get(pagina.chave());
+                    if (fragmento == null) {
+                        PaginaRenderizada renderizada = renderizarPagina(dto, pagina.itens(), imagens);
+                        fragmento = renderizada.pdf();
+                        if (renderizada.degradada()) {
+                            degradadas++;
+                        } else {
+                            paginasRenderizadas.put(pagina.chave(), fragmento);
+                        }
+                        renderizadas++;
+                    }
+                    
+                    imagens.concluirPagina(janela);
+                    anexarFragmento(copia, fragmento);
+                    copia.flush();
+                    paginaConcluida.accept(i + 1);
                 }
-                gerarPagina(document, dto, paginas.get(i));
+            } finally {
+                imagens.cancelar();
             }
 
             document.close();
-            log.info("PDF gerado com sucesso: {} páginas", paginas.size());
+            log.info("PDF gerado com sucesso: {} páginas ({} renderizadas, {} do cache)", 
+                    total, renderizadas, total - renderizadas);
+            if (degradadas > 0) {
+                log.warn("PDF com {} páginas sem alguma imagem; não será mantido em cache", degradadas);
+            }
+            return degradadas == 0;
             
+        } catch (CancellationException e) {
+            log.debug("Geração do PDF cancelada: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Erro ao gerar PDF", e);
             throw e;
         }
+    }
 
-        return baos.toByteArray();
+    /**
+     * Número de páginas do PDF de uma ordem (grupos de numeroPagina; no mínimo 1).
+     */
+    public int contarPaginas(OrdemServicoDTO dto) {
+        return Math.max(1, agruparItensPorPagina(dto.getItens()).size());
+    }
+
+    /**
+     * Número de páginas do PDF de uma ordem salva, consultado no banco.
+     */
+    public int contarPaginasSalvas(Long ordemId) {
+        return Math.max(1, itemRepository.findNumerosPaginaByOrdemServicoId(ordemId).size());
+    }
+
+    /**
+     * PDF de uma única página da ordem (grupo de numeroPagina), para o preview no editor.
+     * 
+     * Usa o mesmo layout e o mesmo cache de páginas do PDF completo: uma página
+     * já impressa (ou já pré-visualizada) não é renderizada novamente.
+     * 
+     * @param numeroPagina Número da página nos itens (numeroPagina)
+     * @param perfil Perfil de renderização
+     * @throws NaoEncontradoException Se a ordem não tiver itens nessa página
+     */
+    public byte[] gerarPagina(OrdemServicoDTO dto, int numeroPagina, PerfilRenderizacao perfil) throws Exception {
+        List<ItemOrdemDTO> itens = agruparItensPorPagina(dto.getItens()).stream()
+                .filter(pagina -> pagina.get(0).getNumeroPagina() == numeroPagina)
+                .findFirst()
+                .orElseThrow(() -> new NaoEncontradoException("Página não encontrada: " + numeroPagina));
+        return fragmentoPagina(dto, itens, resolucoes.get(perfil));
+    }
+
+    /**
+     * PDF de uma única página de uma ordem salva, lendo somente os itens dessa página.
+     * 
+     * @param cabecalho Ordem salva (id e campos do cabeçalho; os itens são ignorados)
+     * @see #gerarPagina(OrdemServicoDTO, int, PerfilRenderizacao)
+     */
+    public byte[] gerarPaginaSalva(OrdemServicoDTO cabecalho, int numeroPagina, PerfilRenderizacao perfil)
+            throws Exception {
+        List<ItemOrdemDTO> itens = itemRepository
+                .findByOrdemServicoIdAndNumeroPaginaOrderByNumeroLinhaAsc(cabecalho.getId(), numeroPagina)
+                .stream()
+                .map(PdfService::converterItem)
+                .collect(Collectors.toList());
+        if (itens.isEmpty()) {
+            throw new NaoEncontradoException("Página não encontrada: " + numeroPagina);
+        }
+        return fragmentoPagina(cabecalho, itens, resolucoes.get(perfil));
+    }
+
+    private byte[] fragmentoPagina(OrdemServicoDTO dto, List<ItemOrdemDTO> itens, Resolucao resolucao)
+            throws Exception {
+        String chave = chavePagina(dto, itens, resolucao);
+        byte[] fragmento = paginasRenderizadas.get(chave);
+        if (fragmento != null) {
+            return fragmento;
+        }
+
+        ImagensDoDocumento imagens = new ImagensDoDocumento(resolucao);
+        PaginaRenderizada renderizada;
+        try {
+            // Todas as imagens da página em paralelo
+            imagens.antecipar(itens);
+            renderizada = renderizarPagina(dto, itens, imagens);
+        } finally {
+            imagens.cancelar();
+        }
+        if (!renderizada.degradada()) {
+            paginasRenderizadas.put(chave, renderizada.pdf());
+        }
+        return renderizada.pdf();
+    }
+
+    /**
+     * Retorna os contadores do cache de páginas renderizadas.
+     */
+    public Map<String, Object> estatisticasPaginas() {
+        return paginasRenderizadas.estatisticas();
+    }
+
+    /**
+     * Renderiza uma página como um PDF independente.
+     * 
+     * Uma página que transborda o A4 resulta em mais de uma página física.
+     */
+    private PaginaRenderizada renderizarPagina(OrdemServicoDTO dto, List<ItemOrdemDTO> itens,
+                                               ImagensDoDocumento imagens) throws Exception {
+        int falhasAntes = imagens.falhas();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document(PageSize.A4);
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+        gerarPagina(document, new ModelosEstaticos(writer.getDirectContent()), dto, itens, imagens);
+        document.close();
+        return new PaginaRenderizada(baos.toByteArray(), imagens.falhas() > falhasAntes);
+    }
+
+    /**
+     * Copia as páginas de um fragmento para o documento final.
+     */
+    private void anexarFragmento(PdfSmartCopy copia, byte[] fragmento) throws IOException, DocumentException {
+        PdfReader leitor = new PdfReader(fragmento);
+        try {
+            for (int pagina = 1; pagina <= leitor.getNumberOfPages(); pagina++) {
+                copia.addPage(copia.getImportedPage(leitor, pagina));
+            }
+            copia.freeReader(leitor);
+        } finally {
+            leitor.close();
+        }
+    }
+
+    private void anteciparSeNecessario(ImagensDoDocumento imagens, PaginaCarregada pagina) {
+        // Páginas já em cache não precisam de imagens
+        if (!paginasRenderizadas.contem(pagina.chave())) {
+            imagens.antecipar(pagina.itens());
+        }
+    }
+
+    /**
+     * Chave de cache de uma página: hash de tudo que aparece nela.
+     * 
+     * Inclui os campos do cabeçalho, os campos de cada item e a configuração
+     * de imagem do perfil (resolução e qualidade), de forma que cada perfil
+     * tem suas próprias páginas em cache. O nome do arquivo identifica o
+     * conteúdo da imagem, então uma imagem trocada muda a chave.
+     */
+    private String chavePagina(OrdemServicoDTO ordem, List<ItemOrdemDTO> itens, Resolucao resolucao) {
+        StringBuilder conteudo = new StringBuilder()
+                .append(resolucao.larguraPx()).append('|').append(resolucao.alturaPx())
+                .append('|').append(resolucao.qualidadeJpeg())
+                .append('|').append(ordem.getCliente())
+                .append('|').append(ordem.getData())
+                .append('|').append(ordem.getHora())
+                .append('|').append(ordem.getPapel())
+                .append('|').append(ordem.getTecido())
+                .append('|').append(ordem.getLarguraTecido())
+                .append('|').append(ordem.getLarguraImpressao())
+                .append('|').append(ordem.getTecCliente())
+                .append('|').append(ordem.getTecSublimatec())
+                .append('|').append(ordem.getSoImpressao())
+                .append('|').append(ordem.getCalandra());
+
+        for (ItemOrdemDTO item : itens) {
+            conteudo.append('\n').append(item.getNumeroLinha())
+                    .append('|').append(item.getRef())
+                    .append('|').append(item.getPasta())
+                    .append('|').append(item.getMetragem())
+                    .append('|').append(item.getTipoCrop())
+                    .append('|').append(item.getCaminhoImagem());
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(conteudo.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
     }
 
     /**
@@ -84,35 +645,99 @@ public class PdfService {
      * - Blocos de imagem (até 6 por página)
      * - Rodapé com autorização
      */
-    private void gerarPagina(Document document, OrdemServicoDTO ordem, 
-                            List<ItemOrdemDTO> itens) throws Exception {
+    private void gerarPagina(Document document, ModelosEstaticos modelos, OrdemServicoDTO ordem, 
+                            List<ItemOrdemDTO> itens, ImagensDoDocumento imagens) throws Exception {
         
         // === CABEÇALHO ===
-        adicionarCabecalho(document, ordem);
+        adicionarCabecalho(document, modelos, ordem);
         
         // === CHECKBOXES E OBSERVAÇÕES ===
-        adicionarCheckboxesEObservacoes(document, ordem);
+        adicionarCheckboxesEObservacoes(document, modelos, ordem);
         
         // === BLOCOS DE IMAGEM ===
-        adicionarBlocosImagem(document, itens);
+        adicionarBlocosImagem(document, modelos, itens, imagens);
         
         // === RODAPÉ ===
-        adicionarRodape(document);
+        adicionarRodape(document, modelos);
+    }
+
+    /**
+     * Textos fixos da página desenhados uma única vez como XObjects (PdfTemplate).
+     * 
+     * Cada uso apenas referencia o XObject, e o PdfSmartCopy unifica os XObjects
+     * idênticos de todos os fragmentos: no PDF final, cada texto fixo aparece
+     * uma só vez, por mais páginas e itens que a ordem tenha.
+     */
+    private static final class ModelosEstaticos {
+
+        private final PdfTemplate titulo;
+        private final PdfTemplate observacoes;
+        private final PdfTemplate controles;
+        private final PdfTemplate rodape;
+
+        private ModelosEstaticos(PdfContentByte conteudo) {
+            this.titulo = desenhar(conteudo, HELVETICA_NEGRITO, 14, true, TITULO);
+            this.observacoes = desenhar(conteudo, HELVETICA, 10, false, OBSERVACOES);
+            this.controles = desenhar(conteudo, HELVETICA, 9, false, CONTROLES);
+            this.rodape = desenhar(conteudo, HELVETICA, 10, false, RODAPE);
+        }
+
+        /**
+         * Desenha linhas de texto com a mesma entrelinha e linha de base de um Paragraph.
+         */
+        private static PdfTemplate desenhar(PdfContentByte conteudo, BaseFont fonte, float tamanho,
+                                            boolean centralizado, String... linhas) {
+            float entrelinha = tamanho * FATOR_ENTRELINHA;
+            PdfTemplate modelo = conteudo.createTemplate(LARGURA_UTIL_PT, entrelinha * linhas.length);
+
+            modelo.beginText();
+            modelo.setFontAndSize(fonte, tamanho);
+            for (int i = 0; i < linhas.length; i++) {
+                float y = modelo.getHeight() - entrelinha * (i + 1);
+                float x = centralizado ? (LARGURA_UTIL_PT - fonte.getWidthPoint(linhas[i], tamanho)) / 2 : 0;
+                modelo.setTextMatrix(x, y);
+                modelo.showText(linhas[i]);
+            }
+            modelo.endText();
+
+            // A caixa desce abaixo da última linha de base para não cortar "_", "ç" etc.
+            float descida = -fonte.getFontDescriptor(BaseFont.DESCENT, tamanho);
+            modelo.setBoundingBox(new Rectangle(0, -descida, LARGURA_UTIL_PT, modelo.getHeight()));
+            return modelo;
+        }
+
+        /**
+         * Parágrafo que referencia o XObject, ocupando exatamente a altura
+         * das linhas que ele substitui (uma Image solta no fluxo recebe
+         * espaçamento extra do PdfDocument).
+         */
+        private static Paragraph usar(PdfTemplate modelo) throws BadElementException {
+            Paragraph paragrafo = new Paragraph(modelo.getBoundingBox().getTop());
+            paragrafo.add(new Chunk(Image.getInstance(modelo), 0, 0, false));
+            return paragrafo;
+        }
+    }
+
+    private static BaseFont criarBaseFont(String nome) {
+        try {
+            return BaseFont.createFont(nome, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+        } catch (DocumentException | IOException e) {
+            throw new IllegalStateException("Fonte indisponível: " + nome, e);
+        }
     }
 
     /**
      * Adiciona cabeçalho do documento.
      */
-    private void adicionarCabecalho(Document document, OrdemServicoDTO ordem) throws DocumentException {
+    private void adicionarCabecalho(Document document, ModelosEstaticos modelos, OrdemServicoDTO ordem)
+            throws DocumentException {
         // Título
-        Font tituloFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
-        Paragraph titulo = new Paragraph("ORDEM DE SERVIÇO", tituloFont);
-        titulo.setAlignment(Element.ALIGN_CENTER);
+        Paragraph titulo = ModelosEstaticos.usar(modelos.titulo);
         titulo.setSpacingAfter(10);
         document.add(titulo);
 
         // Informações do cabeçalho
-        Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 10);
+        Font normalFont = FONTE_NORMAL;
         
         document.add(new Paragraph(
             String.format("Cliente: %s                    Larg.Tec: %s",
@@ -146,10 +771,10 @@ public class PdfService {
     /**
      * Adiciona checkboxes e área de observações.
      */
-    private void adicionarCheckboxesEObservacoes(Document document, OrdemServicoDTO ordem) 
-            throws DocumentException {
+    private void adicionarCheckboxesEObservacoes(Document document, ModelosEstaticos modelos,
+                                                 OrdemServicoDTO ordem) throws DocumentException {
         
-        Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 10);
+        Font normalFont = FONTE_NORMAL;
         
         // Checkboxes (linha 1130-1136 do PrintUtils)
         String checkboxes = String.format(
@@ -166,7 +791,7 @@ public class PdfService {
         
         // Área de observações (placeholder)
         document.add(new Paragraph(" "));
-        document.add(new Paragraph("Observações: _____________________________________", normalFont));
+        document.add(ModelosEstaticos.usar(modelos.observacoes));
         document.add(new Paragraph(" "));
     }
 
@@ -174,36 +799,35 @@ public class PdfService {
      * Adiciona blocos de imagem.
      * 
      * Cada bloco contém:
-     * - Imagem processada (400x220px)
+     * - Imagem processada, embutida como JPEG na resolução do perfil de renderização
      * - REF em vermelho/negrito
      * - PASTA em maiúsculas
-     * - Campos de controle (Ploteiro, Calandra, Conferente)
+     * - Campos de controle (Ploteiro, Calandra, Conferente), um XObject fixo
+     * 
+     * Cada combinação (imagem, crop efetivo, tamanho) é embutida uma única
+     * vez por página; as repetições reutilizam a mesma imagem embutida.
      */
-    private void adicionarBlocosImagem(Document document, List<ItemOrdemDTO> itens) 
+    private void adicionarBlocosImagem(Document document, ModelosEstaticos modelos, List<ItemOrdemDTO> itens,
+                                       ImagensDoDocumento imagens) 
             throws Exception {
         
-        Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 9);
-        Font boldFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 9);
-        Font redBoldFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 9);
-        redBoldFont.setColor(java.awt.Color.RED);
+        Font normalFont = FONTE_ITEM;
+        Font redBoldFont = FONTE_ITEM_DESTAQUE;
 
         for (ItemOrdemDTO item : itens) {
             // Processar e adicionar imagem
             if (item.getCaminhoImagem() != null && !item.getCaminhoImagem().isEmpty()) {
                 try {
-                    BufferedImage img = imagemService.processarImagem(
-                        item.getCaminhoImagem(),
-                        item.getTipoCrop(),
-                        400, 220
-                    );
+                    Image compartilhada = imagens.obter(item);
                     
-                    // Converter BufferedImage para Image do OpenPDF
-                    Image pdfImage = Image.getInstance(img, null);
-                    pdfImage.scaleAbsolute(200, 110); // Escala para PDF
+                    // Cópia com o mesmo identificador: o PdfWriter embute os bytes uma só vez
+                    Image pdfImage = Image.getInstance(compartilhada);
+                    pdfImage.scaleAbsolute(LARGURA_IMAGEM_PT, ALTURA_IMAGEM_PT);
                     document.add(pdfImage);
                     
                 } catch (IOException e) {
                     log.error("Erro ao processar imagem: {}", item.getCaminhoImagem(), e);
+                    imagens.registrarFalha();
                     document.add(new Paragraph("[Imagem não disponível]", normalFont));
                 }
             } else {
@@ -230,41 +854,69 @@ public class PdfService {
             document.add(pastaPara);
 
             // Campos de controle (linhas 1276-1280 do PrintUtils)
-            document.add(new Paragraph(
-                "Ploteiro: ___________  Data:__/__/__  Máquina: ______", normalFont));
-            document.add(new Paragraph(
-                "Op. Calandra: _________  Data:__/__/__", normalFont));
-            document.add(new Paragraph(
-                "Conferente: ___________  Data:__/__/__  Revisão: ___", normalFont));
+            document.add(ModelosEstaticos.usar(modelos.controles));
             
             document.add(new Paragraph(" ")); // Espaçamento entre blocos
         }
     }
 
+    /**
+     * Aguarda uma preparação, repassando a exceção original.
+     * 
+     * IOException vira o aviso "[Imagem não disponível]" no bloco; as demais
+     * (ex.: CapacidadeExcedidaException) interrompem a geração.
+     */
+    private byte[] aguardar(CompletableFuture<byte[]> preparacao) throws IOException {
+        try {
+            return preparacao.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException erro) {
+                throw erro;
+            }
+            if (e.getCause() instanceof RuntimeException erro) {
+                throw erro;
+            }
+            throw e;
+        }
+    }
+
     /**
      * Adiciona rodapé com autorização.
      */
-    private void adicionarRodape(Document document) throws DocumentException {
-        Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 10);
-        
-        Paragraph rodape = new Paragraph(
-            "Autorizado por: ___________________________________________", 
-            normalFont
-        );
+    private void adicionarRodape(Document document, ModelosEstaticos modelos) throws DocumentException {
+        Paragraph rodape = ModelosEstaticos.usar(modelos.rodape);
         rodape.setSpacingBefore(20);
         document.add(rodape);
     }
 
     /**
-     * Agrupa itens por número de página.
+     * Agrupa itens por número de página, em ordem de página e, dentro de
+     * cada página, de linha.
      * 
      * Cada página do sistema legado contém até 6 itens.
      */
     private List<List<ItemOrdemDTO>> agruparItensPorPagina(List<ItemOrdemDTO> itens) {
+        Comparator<ItemOrdemDTO> porLinha = Comparator.comparing(ItemOrdemDTO::getNumeroLinha,
+                Comparator.nullsLast(Comparator.naturalOrder()));
+        
         return itens.stream()
-                .collect(Collectors.groupingBy(ItemOrdemDTO::getNumeroPagina))
+                .sorted(porLinha)
+                .collect(Collectors.groupingBy(ItemOrdemDTO::getNumeroPagina, TreeMap::new, Collectors.toList()))
                 .values()
                 .stream()
                 .collect(Collectors.toList());
     }
+
+    private static ItemOrdemDTO converterItem(ItemOrdem item) {
+        ItemOrdemDTO dto = new ItemOrdemDTO();
+        dto.setId(item.getId());
+        dto.setNumeroPagina(item.getNumeroPagina());
+        dto.setNumeroLinha(item.getNumeroLinha());
+        dto.setRef(item.getRef());
+        dto.setPasta(item.getPasta());
+        dto.setMetragem(item.getMetragem());
+        dto.setTipoCrop(item.getTipoCrop());
+        dto.setCaminhoImagem(item.getCaminhoImagem());
+        return dto;
+    }
 }
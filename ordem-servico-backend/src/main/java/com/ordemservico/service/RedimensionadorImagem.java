@@ -0,0 +1,66 @@
+package com.ordemservico.service;
+
+import org.springframework.stereotype.Component;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Redimensionamento de imagens em etapas com interpolação bilinear/bicúbica.
+ *
+ * Substitui o Image.getScaledInstance(SCALE_SMOOTH), que passa pelo
+ * AreaAveragingScaleFilter e é muito lento em imagens grandes.
+ *
+ * Reduções grandes são feitas dividindo o tamanho pela metade a cada etapa
+ * (bilinear), o que preserva a qualidade sem o custo de um filtro de área.
+ * A última etapa usa interpolação bicúbica até o tamanho final.
+ */
+@Component
+public class RedimensionadorImagem {
+
+    /**
+     * Redimensiona a imagem para o tamanho exato informado.
+     *
+     * Imagens opacas (como JPEG) geram saída RGB, sem canal alfa.
+     *
+     * @param original Imagem de origem
+     * @param largura Largura final
+     * @param altura Altura final
+     * @return Nova imagem no tamanho solicitado
+     */
+    public BufferedImage redimensionar(BufferedImage original, int largura, int altura) {
+        int tipo = original.getTransparency() == Transparency.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB
+                : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage atual = original;
+        int larguraAtual = original.getWidth();
+        int alturaAtual = original.getHeight();
+
+        // Etapas intermediárias: reduz pela metade enquanto ainda estiver acima do dobro do destino
+        while (larguraAtual / 2 >= largura || alturaAtual / 2 >= altura) {
+            larguraAtual = Math.max(largura, larguraAtual / 2);
+            alturaAtual = Math.max(altura, alturaAtual / 2);
+            atual = desenhar(atual, larguraAtual, alturaAtual, tipo,
+                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+
+        // Etapa final até o tamanho exato
+        return desenhar(atual, largura, altura, tipo, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+    }
+
+    private BufferedImage desenhar(BufferedImage origem, int largura, int altura, int tipo, Object interpolacao) {
+        BufferedImage destino = new BufferedImage(largura, altura, tipo);
+        Graphics2D g2d = destino.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolacao);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.drawImage(origem, 0, 0, largura, altura, null);
+        } finally {
+            g2d.dispose();
+        }
+        return destino;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ordemservico.service;
+
+/**
+ * Lançada quando um upload em partes não existe (id desconhecido,
+ * já concluído, cancelado ou expirado).
+ */
+public class UploadNaoEncontradoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UploadNaoEncontradoException(String id) {
+        super("Upload não encontrado: " + id);
+    }
+}
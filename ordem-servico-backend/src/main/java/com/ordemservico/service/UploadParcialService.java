@@ -0,0 +1,294 @@
+package com.ordemservico.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Serviço de upload em partes (retomável) para arquivos grandes.
+ *
+ * Protocolo:
+ * 1. iniciar: informa nome e tamanho, recebe um uploadId
+ * 2. gravarParte: envia blocos por offset (podem ser paralelos e repetidos)
+ * 3. concluir: monta o arquivo e o entrega à validação normal do ImagemService
+ *
+ * Uploads parados por mais tempo que a expiração são removidos pelo faxineiro.
+ */
+@Service
+public class UploadParcialService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadParcialService.class);
+
+    private static final String DIRETORIO_PARCIAIS = ".parciais";
+
+    private final ImagemService imagemService;
+    private final Path diretorio;
+    private final Duration expiracao;
+    private final int maxAbertos;
+    private final long maxBytes;
+    private final Map<String, UploadParcial> uploads = new ConcurrentHashMap<>();
+
+    public UploadParcialService(ImagemService imagemService,
+                                @Value("${app.upload.dir}") String uploadDir,
+                                @Value("${app.upload.parcial.expiracao-minutos:60}") long expiracaoMinutos,
+                                @Value("${app.upload.parcial.max-abertos:100}") int maxAbertos,
+                                @Value("${app.upload.parcial.max-mb:2048}") long maxMb) {
+        this.imagemService = imagemService;
+        this.diretorio = Paths.get(uploadDir, DIRETORIO_PARCIAIS);
+        this.expiracao = Duration.ofMinutes(expiracaoMinutos);
+        this.maxAbertos = maxAbertos;
+        this.maxBytes = maxMb * 1024 * 1024;
+    }
+
+    /**
+     * Estado de um upload em andamento.
+     */
+    private static final class UploadParcial {
+        private final String id;
+        private final String nome;
+        private final long tamanho;
+        private final Path arquivo;
+        /** Faixas recebidas: offset inicial -> offset final (exclusivo). */
+        private final TreeMap<Long, Long> recebidos = new TreeMap<>();
+        private volatile Instant ultimaAtividade = Instant.now();
+
+        private UploadParcial(String id, String nome, long tamanho, Path arquivo) {
+            this.id = id;
+            this.nome = nome;
+            this.tamanho = tamanho;
+            this.arquivo = arquivo;
+        }
+
+        private synchronized void registrar(long inicio, long fim) {
+            // Une a nova faixa às vizinhas que se sobrepõem ou encostam
+            Map.Entry<Long, Long> anterior = recebidos.floorEntry(inicio);
+            if (anterior != null && anterior.getValue() >= inicio) {
+                inicio = anterior.getKey();
+                fim = Math.max(fim, anterior.getValue());
+            }
+            Map.Entry<Long, Long> seguinte = recebidos.ceilingEntry(inicio);
+            while (seguinte != null && seguinte.getKey() <= fim) {
+                fim = Math.max(fim, seguinte.getValue());
+                recebidos.remove(seguinte.getKey());
+                seguinte = recebidos.ceilingEntry(inicio);
+            }
+            recebidos.put(inicio, fim);
+        }
+
+        private synchronized long bytesRecebidos() {
+            return recebidos.entrySet().stream()
+                    .mapToLong(faixa -> faixa.getValue() - faixa.getKey())
+                    .sum();
+        }
+
+        private synchronized boolean completo() {
+            return recebidos.size() == 1
+                    && recebidos.firstKey() == 0
+                    && recebidos.firstEntry().getValue() == tamanho;
+        }
+
+        private synchronized List<long[]> faixas() {
+            List<long[]> faixas = new ArrayList<>();
+            recebidos.forEach((inicio, fim) -> faixas.add(new long[]{inicio, fim}));
+            return faixas;
+        }
+    }
+
+    /**
+     * Inicia um upload em partes.
+     *
+     * O número de uploads abertos (app.upload.parcial.max-abertos) e a soma
+     * dos seus tamanhos declarados (app.upload.parcial.max-mb), que limita o
+     * disco usado pelos arquivos parciais, são limitados até a conclusão,
+     * o cancelamento ou a expiração de cada upload.
+     *
+     * @param nome Nome original do arquivo
+     * @param tamanho Tamanho total em bytes
+     * @return Identificador do upload
+     * @throws IOException Se o tamanho exceder o máximo ou houver erro de disco
+     * @throws CapacidadeExcedidaException Se os limites de uploads abertos forem atingidos
+     */
+    public synchronized String iniciar(String nome, long tamanho) throws IOException {
+        if (tamanho > ImagemService.TAMANHO_MAXIMO) {
+            throw new IOException("Arquivo excede o tamanho máximo de 60MB");
+        }
+        if (uploads.size() >= maxAbertos) {
+            throw new CapacidadeExcedidaException(
+                    "Limite de " + maxAbertos + " uploads em partes abertos atingido");
+        }
+        long reservados = uploads.values().stream().mapToLong(upload -> upload.tamanho).sum();
+        if (reservados + tamanho > maxBytes) {
+            throw new CapacidadeExcedidaException("Espaço para uploads em partes esgotado");
+        }
+
+        Files.createDirectories(diretorio);
+        String id = UUID.randomUUID().toString();
+        Path arquivo = diretorio.resolve(id + ".part");
+        Files.createFile(arquivo);
+
+        uploads.put(id, new UploadParcial(id, nome, tamanho, arquivo));
+        log.info("Upload em partes iniciado: {} ({}, {}KB)", id, nome, tamanho / 1024);
+        return id;
+    }
+
+    /**
+     * Grava uma parte do arquivo na posição informada.
+     *
+     * Partes podem chegar em qualquer ordem, em paralelo, e podem ser
+     * reenviadas após uma falha de conexão.
+     *
+     * @param id Identificador do upload
+     * @param offset Posição inicial da parte no arquivo
+     * @param entrada Conteúdo da parte
+     * @param tamanhoParte Tamanho da parte (Content-Length)
+     * @return Total de bytes já recebidos
+     * @throws IOException Se a parte estiver fora dos limites ou houver erro de disco
+     */
+    public long gravarParte(String id, long offset, InputStream entrada, long tamanhoParte) throws IOException {
+        UploadParcial upload = buscar(id);
+
+        if (offset < 0 || tamanhoParte <= 0 || offset + tamanhoParte > upload.tamanho) {
+            throw new IOException("Parte fora dos limites do arquivo");
+        }
+
+        long gravados;
+        try (FileChannel canal = FileChannel.open(upload.arquivo, StandardOpenOption.WRITE)) {
+            gravados = canal.transferFrom(Channels.newChannel(entrada), offset, tamanhoParte);
+        }
+
+        if (gravados > 0) {
+            upload.registrar(offset, offset + gravados);
+        }
+        upload.ultimaAtividade = Instant.now();
+        return upload.bytesRecebidos();
+    }
+
+    /**
+     * Retorna o andamento de um upload (bytes e faixas já recebidas).
+     */
+    public Map<String, Object> consultar(String id) {
+        UploadParcial upload = buscar(id);
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("uploadId", upload.id);
+        status.put("nome", upload.nome);
+        status.put("tamanho", upload.tamanho);
+        status.put("recebidos", upload.bytesRecebidos());
+        status.put("faixas", upload.faixas());
+        status.put("completo", upload.completo());
+        return status;
+    }
+
+    /**
+     * Conclui o upload: valida e armazena o arquivo montado.
+     *
+     * @return Dados da imagem armazenada
+     * @throws IOException Se faltarem partes ou o conteúdo for inválido
+     * @throws UploadNaoEncontradoException Se o upload não existir
+     */
+    public ImagemService.ArquivoArmazenado concluir(String id) throws IOException {
+        UploadParcial upload = buscar(id);
+
+        if (!upload.completo()) {
+            throw new IOException("Upload incompleto: " + upload.bytesRecebidos()
+                    + " de " + upload.tamanho + " bytes recebidos");
+        }
+
+        try (InputStream entrada = Files.newInputStream(upload.arquivo)) {
+            ImagemService.ArquivoArmazenado arquivo = imagemService.uploadImagem(entrada, upload.tamanho);
+            log.info("Upload em partes concluído: {} -> {}", id, arquivo.caminhoImagem());
+            return arquivo;
+        } finally {
+            descartar(upload);
+        }
+    }
+
+    /**
+     * Cancela um upload e remove os dados recebidos.
+     */
+    public void cancelar(String id) {
+        descartar(buscar(id));
+    }
+
+    /**
+     * Remove uploads parados há mais tempo que a expiração,
+     * inclusive arquivos parciais que sobraram de um reinício da aplicação.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.parcial.intervalo-limpeza-ms:600000}")
+    public void removerExpirados() {
+        Instant limite = Instant.now().minus(expiracao);
+
+        uploads.values().stream()
+                .filter(upload -> upload.ultimaAtividade.isBefore(limite))
+                .forEach(upload -> {
+                    log.info("Upload em partes expirado: {}", upload.id);
+                    descartar(upload);
+                });
+
+        if (!Files.isDirectory(diretorio)) {
+            return;
+        }
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            arquivos.filter(arquivo -> !uploads.containsKey(idDoArquivo(arquivo)))
+                    .filter(arquivo -> modificadoAntesDe(arquivo, limite))
+                    .forEach(this::remover);
+        } catch (IOException e) {
+            log.warn("Erro ao limpar uploads parciais", e);
+        }
+    }
+
+    private UploadParcial buscar(String id) {
+        UploadParcial upload = uploads.get(id);
+        if (upload == null) {
+            throw new UploadNaoEncontradoException(id);
+        }
+        return upload;
+    }
+
+    private void descartar(UploadParcial upload) {
+        uploads.remove(upload.id);
+        remover(upload.arquivo);
+    }
+
+    private void remover(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.warn("Erro ao remover upload parcial: {}", arquivo, e);
+        }
+    }
+
+    private String idDoArquivo(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return nome.endsWith(".part") ? nome.substring(0, nome.length() - 5) : nome;
+    }
+
+    private boolean modificadoAntesDe(Path arquivo, Instant limite) {
+        try {
+            return Files.getLastModifiedTime(arquivo).toInstant().isBefore(limite);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
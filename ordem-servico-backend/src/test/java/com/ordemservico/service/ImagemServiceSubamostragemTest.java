@@ -0,0 +1,163 @@
+package com.ordemservico.service;
+
+import com.ordemservico.domain.enums.TipoCrop;
+import com.ordemservico.repository.ItemOrdemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compara a leitura por região com subamostragem (processarImagem) com o
+ * pipeline anterior: decodificar a imagem inteira, recortar e redimensionar.
+ */
+class ImagemServiceSubamostragemTest {
+
+    /** Diferença média máxima por canal (0-255). */
+    private static final double ERRO_MEDIO_MAXIMO = 1.5;
+
+    /** Diferença de um canal (0-255) a partir da qual o pixel é considerado divergente. */
+    private static final int ERRO_PIXEL_TOLERADO = 16;
+
+    /**
+     * Fração máxima de canais divergentes. A subamostragem desloca bordas
+     * nítidas em até um pixel, então só elas podem passar da tolerância.
+     */
+    private static final double FRACAO_DIVERGENTE_MAXIMA = 0.005;
+
+    @TempDir
+    Path diretorio;
+
+    private LayoutArmazenamento layout;
+    private RedimensionadorImagem redimensionador;
+    private ImagemService imagemService;
+
+    @BeforeEach
+    void configurar() {
+        layout = new LayoutArmazenamento(diretorio.toString());
+        redimensionador = new RedimensionadorImagem();
+
+        ImagemMetadadosService metadados = mock(ImagemMetadadosService.class);
+        when(metadados.buscar(anyString())).thenReturn(Optional.empty());
+
+        imagemService = new ImagemService(
+                new ImagemCacheService(layout, 16, false, 0),
+                redimensionador,
+                mock(ItemOrdemRepository.class),
+                new OrcamentoDecodificacao(512, 30000),
+                metadados,
+                layout,
+                24);
+    }
+
+    static Stream<Arguments> casos() {
+        Stream.Builder<Arguments> casos = Stream.builder();
+        for (String formato : new String[] {"png", "jpg"}) {
+            for (TipoCrop tipoCrop : TipoCrop.values()) {
+                casos.add(Arguments.of(formato, tipoCrop, ImagemService.LARGURA_PDF, ImagemService.ALTURA_PDF));
+                casos.add(Arguments.of(formato, tipoCrop, 833, 458));
+            }
+        }
+        return casos.build();
+    }
+
+    @ParameterizedTest(name = "{0} {1} {2}x{3}")
+    @MethodSource("casos")
+    void subamostragemAcompanhaDecodificacaoCompleta(String formato, TipoCrop tipoCrop,
+                                                     int largura, int altura) throws IOException {
+        String nome = "fixture." + formato;
+        Path arquivo = layout.destino(nome);
+        Files.createDirectories(arquivo.getParent());
+        ImageIO.write(criarFixture(4000, 1000), formato, arquivo.toFile());
+
+        BufferedImage esperada = pipelineAnterior(arquivo, tipoCrop, largura, altura);
+        BufferedImage obtida = imagemService.processarImagem(nome, tipoCrop, largura, altura);
+
+        assertThat(obtida.getWidth()).isEqualTo(largura);
+        assertThat(obtida.getHeight()).isEqualTo(altura);
+
+        long somaErros = 0;
+        long divergentes = 0;
+        for (int y = 0; y < altura; y++) {
+            for (int x = 0; x < largura; x++) {
+                int a = esperada.getRGB(x, y);
+                int b = obtida.getRGB(x, y);
+                for (int deslocamento = 0; deslocamento <= 16; deslocamento += 8) {
+                    int erro = Math.abs(((a >> deslocamento) & 0xFF) - ((b >> deslocamento) & 0xFF));
+                    somaErros += erro;
+                    if (erro > ERRO_PIXEL_TOLERADO) {
+                        divergentes++;
+                    }
+                }
+            }
+        }
+        long canais = (long) largura * altura * 3;
+
+        assertThat((double) somaErros / canais).isLessThanOrEqualTo(ERRO_MEDIO_MAXIMO);
+        assertThat((double) divergentes / canais).isLessThanOrEqualTo(FRACAO_DIVERGENTE_MAXIMA);
+    }
+
+    /**
+     * Pipeline anterior: decodifica o arquivo inteiro, recorta 2:1 à esquerda
+     * ou à direita quando a largura é ao menos o dobro da altura, e redimensiona.
+     */
+    private BufferedImage pipelineAnterior(Path arquivo, TipoCrop tipoCrop, int largura, int altura)
+            throws IOException {
+        BufferedImage original = ImageIO.read(arquivo.toFile());
+        int larguraOriginal = original.getWidth();
+        int alturaOriginal = original.getHeight();
+
+        BufferedImage cortada = original;
+        if (tipoCrop != TipoCrop.COMPLETO && larguraOriginal >= alturaOriginal * 2) {
+            int larguraCorte = alturaOriginal * 2;
+            int x = tipoCrop == TipoCrop.ESQUERDA ? 0 : larguraOriginal - larguraCorte;
+            cortada = original.getSubimage(x, 0, larguraCorte, alturaOriginal);
+        }
+        return redimensionador.redimensionar(cortada, largura, altura);
+    }
+
+    /**
+     * Estampa sintética: degradês nos dois eixos, uma ondulação suave e
+     * blocos de cor com bordas nítidas, diferente em cada metade da largura.
+     */
+    private static BufferedImage criarFixture(int largura, int altura) {
+        BufferedImage imagem = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < altura; y++) {
+            for (int x = 0; x < largura; x++) {
+                int r = x * 255 / largura;
+                int g = y * 255 / altura;
+                int b = (int) (127 + 100 * Math.sin(x / 60.0) * Math.cos(y / 45.0));
+                imagem.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+
+        Graphics2D g2d = imagem.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setColor(new Color(200, 30, 40));
+            g2d.fillRect(largura / 10, altura / 5, largura / 8, altura / 3);
+            g2d.setColor(new Color(20, 20, 120));
+            g2d.fillOval(largura * 3 / 4, altura / 2, largura / 6, altura / 3);
+        } finally {
+            g2d.dispose();
+        }
+        return imagem;
+    }
+}
@@ -1,11 +1,11 @@
-import React, { useCallback } from 'react';
+import React, { useCallback, useEffect, useState } from 'react';
 import { useDropzone } from 'react-dropzone';
-import type { ItemOrdem } from '../types/index';
+import type { ImagemMetadados, ItemOrdem } from '../types/index';
 import { TipoCrop } from '../types/index';
 import { imagemService } from '../services/imagemService';
 
-// URL base da API (a mesma do api.ts)
-const API_URL = 'https://back-production-18e4.up.railway.app';
+// Largura da imagem exibida na linha (o servidor envia uma versão reduzida)
+const LARGURA_EXIBICAO = 320;
 
 interface Props {
   item: ItemOrdem;
@@ -18,6 +18,23 @@ interface Props {
  * Replica o LinhaPanel do sistema legado.
  */
 export const LinhaImagem: React.FC<Props> = ({ item, numeroLinha, onChange }) => {
+  const [metadados, setMetadados] = useState<ImagemMetadados | null>(null);
+
+  // Metadados indicam dimensões e se o crop corta a imagem, sem baixar os pixels
+  useEffect(() => {
+    if (!item.caminhoImagem) {
+      setMetadados(null);
+      return;
+    }
+    let ativo = true;
+    imagemService.buscarMetadados(item.caminhoImagem).then((dados) => {
+      if (ativo) setMetadados(dados);
+    });
+    return () => {
+      ativo = false;
+    };
+  }, [item.caminhoImagem]);
+
   const onDrop = useCallback(
     async (acceptedFiles: File[]) => {
       if (acceptedFiles.length === 0) return;
@@ -80,7 +97,8 @@ export const LinhaImagem: React.FC<Props> = ({ item, numeroLinha, onChange }) =>
 
           {item.caminhoImagem ? (
             <img
-              src={`${API_URL}/uploads/${item.caminhoImagem}`}
+              src={imagemService.getImagemExibicaoUrl(item.caminhoImagem, LARGURA_EXIBICAO)}
+              loading="lazy"
               alt={`Imagem ${numeroLinha + 1}`}
               className="max-h-5 max-w-5 object-contain mx-auto"
             />
@@ -172,6 +190,13 @@ export const LinhaImagem: React.FC<Props> = ({ item, numeroLinha, onChange }) =>
               >
                 ➡
               </button>
+
+              {metadados && (
+                <span className="text-xs text-gray-500" title="Dimensões da imagem original">
+                  {metadados.largura}×{metadados.altura}
+                  {!metadados.cortavel && ' (crop não corta)'}
+                </span>
+              )}
             </div>
 
             {/* Campo MTS */}
@@ -1,5 +1,31 @@
 import api from './api';
-import type { UploadResponse } from '../types/index';
+import type { DerivadasResponse, ImagemMetadados, UploadResponse } from '../types/index';
+
+/**
+ * Arquivos acima deste tamanho são enviados em partes (upload retomável).
+ */
+const LIMITE_UPLOAD_EM_PARTES = 8 * 1024 * 1024; // 8MB
+const TAMANHO_PARTE = 2 * 1024 * 1024; // 2MB
+const PARTES_EM_PARALELO = 3;
+const TENTATIVAS_POR_PARTE = 4;
+
+/**
+ * Calcula o SHA-256 do arquivo no navegador.
+ * Retorna null quando a Web Crypto API não está disponível (contexto não seguro).
+ */
+async function calcularHash(file: File): Promise<string | null> {
+  if (!window.crypto?.subtle) {
+    return null;
+  }
+  try {
+    const digest = await window.crypto.subtle.digest('SHA-256', await file.arrayBuffer());
+    return Array.from(new Uint8Array(digest))
+      .map((byte) => byte.toString(16).padStart(2, '0'))
+      .join('');
+  } catch {
+    return null;
+  }
+}
 
 /**
  * Serviço para operações com imagens.
@@ -7,20 +33,109 @@ import type { UploadResponse } from '../types/index';
 export const imagemService = {
   /**
    * Faz upload de uma imagem.
+   *
+   * Antes de enviar, consulta o servidor pelo hash do conteúdo: se a mesma
+   * arte já foi enviada antes, reutiliza o arquivo existente sem novo upload.
    */
   async upload(file: File): Promise<UploadResponse> {
-    const formData = new FormData();
-    formData.append('file', file);
+    const hash = await calcularHash(file);
+    if (hash) {
+      const existente = await this.buscarPorHash(hash);
+      if (existente) {
+        return {
+          caminhoImagem: existente,
+          nomeOriginal: file.name,
+          mensagem: 'Imagem já existente no servidor',
+        };
+      }
+    }
+
+    if (file.size > LIMITE_UPLOAD_EM_PARTES) {
+      return this.uploadEmPartes(file);
+    }
 
-    const response = await api.post<UploadResponse>('/imagens/upload', formData, {
+    // Envia o arquivo como corpo bruto: o servidor grava direto no disco, sem multipart
+    const response = await api.post<UploadResponse>('/imagens/upload/stream', file, {
+      params: { nome: file.name },
       headers: {
-        'Content-Type': 'multipart/form-data',
+        'Content-Type': 'application/octet-stream',
       },
     });
 
     return response.data;
   },
 
+  /**
+   * Faz upload em partes: cada parte é enviada por offset, algumas em paralelo,
+   * e reenviada em caso de falha. Uma queda de conexão perde apenas a parte em andamento.
+   */
+  async uploadEmPartes(file: File): Promise<UploadResponse> {
+    const inicio = await api.post<{ uploadId: string }>('/imagens/uploads', {
+      nome: file.name,
+      tamanho: file.size,
+    });
+    const { uploadId } = inicio.data;
+
+    const offsets: number[] = [];
+    for (let offset = 0; offset < file.size; offset += TAMANHO_PARTE) {
+      offsets.push(offset);
+    }
+
+    const enviarParte = async (offset: number) => {
+      const parte = file.slice(offset, offset + TAMANHO_PARTE);
+      for (let tentativa = 1; ; tentativa++) {
+        try {
+          await api.put(`/imagens/uploads/${uploadId}`, parte, {
+            params: { offset },
+            headers: { 'Content-Type': 'application/octet-stream' },
+          });
+          return;
+        } catch (error) {
+          if (tentativa >= TENTATIVAS_POR_PARTE) {
+            throw error;
+          }
+          await new Promise((resolve) => setTimeout(resolve, 1000 * tentativa));
+        }
+      }
+    };
+
+    // Cada "trabalhador" consome a fila de offsets até esvaziar
+    const fila = [...offsets];
+    const trabalhadores = Array.from({ length: PARTES_EM_PARALELO }, async () => {
+      let offset = fila.shift();
+      while (offset !== undefined) {
+        await enviarParte(offset);
+        offset = fila.shift();
+      }
+    });
+
+    try {
+      await Promise.all(trabalhadores);
+    } catch (error) {
+      await api.delete(`/imagens/uploads/${uploadId}`).catch(() => undefined);
+      throw error;
+    }
+
+    const response = await api.post<UploadResponse>(
+      `/imagens/uploads/${uploadId}/concluir`,
+      null,
+      { params: { nome: file.name } }
+    );
+    return response.data;
+  },
+
+  /**
+   * Busca uma imagem já armazenada pelo hash SHA-256 do conteúdo.
+   */
+  async buscarPorHash(hash: string): Promise<string | null> {
+    try {
+      const response = await api.get(`/imagens/conteudo/${hash}`);
+      return response.data.caminhoImagem;
+    } catch {
+      return null;
+    }
+  },
+
   /**
    * Verifica se uma imagem existe.
    */
@@ -33,6 +148,26 @@ export const imagemService = {
     }
   },
 
+  /**
+   * Busca os metadados de uma imagem (dimensões, formato, se o crop corta).
+   */
+  async buscarMetadados(filename: string): Promise<ImagemMetadados | null> {
+    try {
+      const response = await api.get<ImagemMetadados>(`/imagens/${filename}/metadados`);
+      return response.data;
+    } catch {
+      return null;
+    }
+  },
+
+  /**
+   * Consulta a situação das derivadas (versões para PDF e miniatura) de uma imagem.
+   */
+  async consultarDerivadas(filename: string): Promise<DerivadasResponse> {
+    const response = await api.get<DerivadasResponse>(`/imagens/${filename}/derivadas`);
+    return response.data;
+  },
+
   /**
    * Deleta uma imagem.
    */
@@ -46,4 +181,15 @@ export const imagemService = {
   getImagemUrl(caminhoImagem: string): string {
     return `http://localhost:8080/uploads/${caminhoImagem}`;
   },
+
+  /**
+   * Retorna a URL de exibição de uma imagem, reduzida para a largura informada.
+   *
+   * O servidor responde com cache imutável e ETag, então a mesma imagem
+   * só é baixada uma vez pelo navegador.
+   */
+  getImagemExibicaoUrl(caminhoImagem: string, largura?: number): string {
+    const url = `${api.defaults.baseURL}/imagens/arquivo/${encodeURIComponent(caminhoImagem)}`;
+    return largura ? `${url}?w=${largura}` : url;
+  },
 };
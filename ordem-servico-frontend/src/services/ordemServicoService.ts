@@ -1,5 +1,5 @@
 import api from './api';
-import type { OrdemServico } from '../types/index';
+import type { FiltroOrdens, OrdemServico, OrdemServicoResumo, PaginaOrdens, PerfilRenderizacao } from '../types/index';
 
 /**
  * Serviço para operações com Ordem de Serviço.
@@ -14,10 +14,24 @@ export const ordemServicoService = {
   },
 
   /**
-   * Lista todas as ordens de serviço.
+   * Lista uma página de ordens (mais recentes primeiro, somente cabeçalhos).
+   *
+   * Para a página seguinte, repita com os mesmos filtros e o proximoCursor recebido.
    */
-  async listarTodas(): Promise<OrdemServico[]> {
-    const response = await api.get<OrdemServico[]>('/ordens');
+  async listar(filtros: FiltroOrdens = {}, cursor?: string | null, tamanho = 20): Promise<PaginaOrdens> {
+    const response = await api.get<PaginaOrdens>('/ordens', {
+      params: { ...filtros, cursor: cursor ?? undefined, tamanho },
+    });
+    return response.data;
+  },
+
+  /**
+   * Lista o resumo das ordens (quantidade de itens e páginas, sem os itens).
+   */
+  async listarResumos(cliente?: string): Promise<OrdemServicoResumo[]> {
+    const response = await api.get<OrdemServicoResumo[]>('/ordens/resumo', {
+      params: { cliente },
+    });
     return response.data;
   },
 
@@ -56,9 +70,13 @@ export const ordemServicoService = {
 
   /**
    * Gera PDF de uma ordem.
+   *
+   * Usa GET para que o navegador revalide pelo ETag (versão da ordem):
+   * uma ordem sem alterações não é gerada nem baixada novamente.
    */
-  async gerarPdf(id: number): Promise<Blob> {
-    const response = await api.post(`/ordens/${id}/pdf`, null, {
+  async gerarPdf(id: number, perfil: PerfilRenderizacao = 'PADRAO'): Promise<Blob> {
+    const response = await api.get(`/ordens/${id}/pdf`, {
+      params: { perfil },
       responseType: 'blob',
     });
     return response.data;
@@ -67,8 +85,36 @@ export const ordemServicoService = {
   /**
    * Gera preview de PDF sem salvar.
    */
-  async gerarPdfPreview(ordem: OrdemServico): Promise<Blob> {
+  async gerarPdfPreview(ordem: OrdemServico, perfil: PerfilRenderizacao = 'PADRAO'): Promise<Blob> {
     const response = await api.post('/ordens/pdf/preview', ordem, {
+      params: { perfil },
+      responseType: 'blob',
+    });
+    return response.data;
+  },
+
+  /**
+   * Gera o preview (PNG) de uma página da ordem em edição, sem salvar.
+   */
+  async gerarPreviewPagina(ordem: OrdemServico, numeroPagina: number): Promise<Blob> {
+    const response = await api.post(`/ordens/pdf/preview/paginas/${numeroPagina}`, ordem, {
+      responseType: 'blob',
+    });
+    return response.data;
+  },
+
+  /**
+   * Gera as ordens de uma lista de ids ou de um período em um único
+   * PDF ou em um ZIP com um PDF por ordem.
+   */
+  async gerarPdfLote(lote: {
+    ids?: number[];
+    dataInicio?: string;
+    dataFim?: string;
+    formato?: 'PDF' | 'ZIP';
+    perfil?: PerfilRenderizacao;
+  }): Promise<Blob> {
+    const response = await api.post('/ordens/pdf/lote', lote, {
       responseType: 'blob',
     });
     return response.data;
@@ -36,12 +36,80 @@ export interface OrdemServico {
   soImpressao: boolean;
   calandra: boolean;
   itens: ItemOrdem[];
+  identificador?: string; // UUID definido pelo servidor na criação
+  versao?: number; // Definida pelo servidor a cada alteração
+  atualizadoEm?: string;
+}
+
+/**
+ * Filtros da listagem de ordens (campos vazios não filtram).
+ */
+export interface FiltroOrdens {
+  cliente?: string;
+  dataInicio?: string; // YYYY-MM-DD
+  dataFim?: string; // YYYY-MM-DD
+  tecido?: string;
+  papel?: string;
+}
+
+/**
+ * Página da listagem: ordens sem itens. proximoCursor ausente = última página.
+ */
+export interface PaginaOrdens {
+  ordens: OrdemServico[];
+  proximoCursor?: string | null;
+}
+
+/**
+ * Resumo de uma ordem para listagens (sem os itens).
+ */
+export interface OrdemServicoResumo {
+  id: number;
+  cliente: string;
+  data: string;
+  hora: string;
+  tecido?: string;
+  quantidadeItens: number;
+  quantidadePaginas: number;
 }
 
 export interface UploadResponse {
   caminhoImagem: string;
   nomeOriginal: string;
   mensagem: string;
+  hash?: string;
+  formato?: string;
+  largura?: number;
+  altura?: number;
+}
+
+export type StatusDerivada =
+  | 'PENDENTE'
+  | 'PROCESSANDO'
+  | 'PRONTA'
+  | 'ERRO'
+  | 'DESCARTADA'
+  | 'DESCONHECIDA';
+
+/**
+ * Qualidade das imagens no PDF: RASCUNHO (tela), PADRAO ou IMPRESSAO (RIP).
+ */
+export type PerfilRenderizacao = 'RASCUNHO' | 'PADRAO' | 'IMPRESSAO';
+
+export interface DerivadasResponse {
+  status: StatusDerivada;
+  miniatura?: string;
+}
+
+export interface ImagemMetadados {
+  nome: string;
+  largura: number;
+  altura: number;
+  formato?: string;
+  tamanhoBytes: number;
+  hash?: string;
+  criadoEm: string;
+  cortavel: boolean; // true se ESQUERDA/DIREITA cortam a imagem (largura >= 2x altura)
 }
 
 export interface ErrorResponse {